@@ -0,0 +1,51 @@
+package dev.mjuarez.benchmarks;
+
+import dev.mjuarez.challenge.AdjacencyMatrixGraph;
+import dev.mjuarez.challenge.SavingsConstructor;
+import dev.mjuarez.util.Solution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building a single solution from scratch, on top of an already built distance model.  Both nearest neighbor searches use
+ * the same seed, so they build the same routes, and only their speed is different.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g", "-Xss64m"})
+public class ConstructionBenchmark {
+
+    @Benchmark
+    public Solution recursiveNearestNeighbor(DistanceMatrix matrix, SolutionQuality quality) {
+        return nearestNeighbor(matrix, quality, AdjacencyMatrixGraph.SearchMode.RECURSIVE);
+    }
+
+    @Benchmark
+    public Solution iterativeNearestNeighbor(DistanceMatrix matrix, SolutionQuality quality) {
+        return nearestNeighbor(matrix, quality, AdjacencyMatrixGraph.SearchMode.ITERATIVE);
+    }
+
+    @Benchmark
+    public Solution savings(DistanceMatrix matrix, SolutionQuality quality) {
+        Solution solution = new SavingsConstructor(matrix.distanceModel).build();
+        quality.record(solution);
+        return solution;
+    }
+
+    private static Solution nearestNeighbor(DistanceMatrix matrix, SolutionQuality quality, AdjacencyMatrixGraph.SearchMode searchMode) {
+        AdjacencyMatrixGraph matrixGraph = new AdjacencyMatrixGraph(matrix.distanceModel, false, new Random(Problem.SEED), searchMode);
+        Solution solution = matrixGraph.findSolution();
+        quality.record(solution);
+        return solution;
+    }
+}
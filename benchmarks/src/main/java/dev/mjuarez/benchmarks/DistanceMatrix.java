@@ -0,0 +1,21 @@
+package dev.mjuarez.benchmarks;
+
+import dev.mjuarez.util.DistanceModel;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The full distance model of the problem, built once per trial, and only for the benchmarks that take it as a parameter,
+ * since it's n^2 drive times that the rest have no use for
+ */
+@State(Scope.Benchmark)
+public class DistanceMatrix {
+    public DistanceModel distanceModel;
+
+    @Setup(Level.Trial)
+    public void build(Problem problem) {
+        distanceModel = new DistanceModel(problem.loads);
+    }
+}
@@ -0,0 +1,35 @@
+package dev.mjuarez.benchmarks;
+
+import dev.mjuarez.util.DistanceModel;
+import dev.mjuarez.util.SparseDistanceModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the full matrix of drive times, the fixed startup cost of every solve, and the sparse candidate graph
+ * that replaces it with --sparse
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class DistanceModelBenchmark {
+
+    @Benchmark
+    public DistanceModel build(Problem problem) {
+        return new DistanceModel(problem.loads);
+    }
+
+    @Benchmark
+    public SparseDistanceModel buildSparse(Problem problem) {
+        return new SparseDistanceModel(problem.loads, 16);
+    }
+}
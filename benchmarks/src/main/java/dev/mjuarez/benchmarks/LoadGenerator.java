@@ -0,0 +1,90 @@
+package dev.mjuarez.benchmarks;
+
+import dev.mjuarez.util.CalculationsUtil;
+import dev.mjuarez.util.LoadSet;
+
+import java.util.SplittableRandom;
+
+/**
+ * Seeded generators of synthetic problems, so every benchmark run solves the exact same loads.
+ * Every load can be done on its own within the max drive time, anything else is drawn again.
+ */
+public enum LoadGenerator {
+    /**
+     * Pickups and dropoffs spread evenly over a square around the depot
+     */
+    UNIFORM {
+        @Override
+        void nextLoad(SplittableRandom random, double[] clusterX, double[] clusterY, double[] load) {
+            load[0] = uniform(random);
+            load[1] = uniform(random);
+            load[2] = uniform(random);
+            load[3] = uniform(random);
+        }
+    },
+
+    /**
+     * Pickups and dropoffs grouped around a few random centers, like deliveries in between a handful of neighborhoods
+     */
+    CLUSTERED {
+        @Override
+        void nextLoad(SplittableRandom random, double[] clusterX, double[] clusterY, double[] load) {
+            int pickupCluster = random.nextInt(clusterX.length);
+            int dropoffCluster = random.nextInt(clusterX.length);
+            load[0] = random.nextGaussian(clusterX[pickupCluster], CLUSTER_SPREAD);
+            load[1] = random.nextGaussian(clusterY[pickupCluster], CLUSTER_SPREAD);
+            load[2] = random.nextGaussian(clusterX[dropoffCluster], CLUSTER_SPREAD);
+            load[3] = random.nextGaussian(clusterY[dropoffCluster], CLUSTER_SPREAD);
+        }
+    },
+
+    /**
+     * Everything happens in one area far away from the depot, so only a few loads fit in every route
+     */
+    FAR_FROM_DEPOT {
+        @Override
+        void nextLoad(SplittableRandom random, double[] clusterX, double[] clusterY, double[] load) {
+            for (int i = 0; i < load.length; i++) {
+                load[i] = FAR_CENTER + uniform(random) / 4;
+            }
+        }
+    };
+
+    // Half the side of the square around the depot where loads are generated
+    private static final double HALF_SIDE = 100;
+    private static final int CLUSTERS = 8;
+    private static final double CLUSTER_SPREAD = 10;
+    private static final double FAR_CENTER = 200;
+
+    /**
+     * Fills in the pickup x, pickup y, dropoff x and dropoff y of a random load
+     */
+    abstract void nextLoad(SplittableRandom random, double[] clusterX, double[] clusterY, double[] load);
+
+    public LoadSet generate(int numOfLoads, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] clusterX = new double[CLUSTERS];
+        double[] clusterY = new double[CLUSTERS];
+        for (int c = 0; c < CLUSTERS; c++) {
+            clusterX[c] = uniform(random);
+            clusterY[c] = uniform(random);
+        }
+
+        LoadSet loads = new LoadSet(numOfLoads);
+        double[] load = new double[4];
+        while (loads.getNumOfLoads() < numOfLoads) {
+            nextLoad(random, clusterX, clusterY, load);
+            double driveTime = CalculationsUtil.calculateTimeInMinutes(CalculationsUtil.DEPOT_X, CalculationsUtil.DEPOT_Y, load[0], load[1])
+                    + CalculationsUtil.calculateTimeInMinutes(load[0], load[1], load[2], load[3])
+                    + CalculationsUtil.calculateTimeInMinutes(load[2], load[3], CalculationsUtil.DEPOT_X, CalculationsUtil.DEPOT_Y);
+            if (driveTime < CalculationsUtil.MAX_DRIVE_TIME_MINUTES) {
+                loads.add(loads.getNumOfLoads() + 1, load[0], load[1], load[2], load[3]);
+            }
+        }
+        return loads;
+    }
+
+    private static double uniform(SplittableRandom random) {
+        return random.nextDouble(-HALF_SIDE, HALF_SIDE);
+    }
+}
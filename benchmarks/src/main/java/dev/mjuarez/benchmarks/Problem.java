@@ -0,0 +1,29 @@
+package dev.mjuarez.benchmarks;
+
+import dev.mjuarez.util.LoadSet;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The synthetic problem every benchmark runs on, generated once per trial from a fixed seed
+ */
+@State(Scope.Benchmark)
+public class Problem {
+    public static final long SEED = 20_240_601L;
+
+    @Param({"UNIFORM", "CLUSTERED", "FAR_FROM_DEPOT"})
+    public LoadGenerator generator;
+
+    @Param({"100", "1000", "10000"})
+    public int numOfLoads;
+
+    public LoadSet loads;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        loads = generator.generate(numOfLoads, SEED);
+    }
+}
@@ -0,0 +1,41 @@
+package dev.mjuarez.benchmarks;
+
+import dev.mjuarez.util.Solution;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Reports the average cost and number of drivers of the solutions found in every iteration, next to the timings, so that
+ * a change can be judged on both speed and quality
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class SolutionQuality {
+    private double totalCost;
+    private long totalDrivers;
+    private long solutions;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        totalCost = 0;
+        totalDrivers = 0;
+        solutions = 0;
+    }
+
+    public void record(Solution solution) {
+        totalCost += solution.getTotalCost();
+        totalDrivers += solution.getRoutes().size();
+        solutions++;
+    }
+
+    public double cost() {
+        return solutions == 0 ? 0 : totalCost / solutions;
+    }
+
+    public double drivers() {
+        return solutions == 0 ? 0 : (double) totalDrivers / solutions;
+    }
+}
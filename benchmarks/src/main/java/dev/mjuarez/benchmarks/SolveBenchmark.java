@@ -0,0 +1,46 @@
+package dev.mjuarez.benchmarks;
+
+import dev.mjuarez.challenge.SolverEngine;
+import dev.mjuarez.challenge.SolverOptions;
+import dev.mjuarez.util.Solution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The whole solver, including the distance model, with a fixed time budget.  The time is mostly the budget itself, so
+ * the interesting numbers here are the cost and drivers of the solution, and the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class SolveBenchmark {
+
+    @Param({"2000"})
+    public long budgetMs;
+
+    // Same format as the command line, without the path to the problem
+    @Param({"", "--local-search", "--construction=savings --local-search", "--neighbors=16 --prune --local-search"})
+    public String options;
+
+    @Benchmark
+    public Solution solve(Problem problem, SolutionQuality quality) {
+        String[] args = (options.isBlank() ? "generated" : "generated " + options).split(" ");
+        SolverEngine engine = new SolverEngine(problem.loads, SolverOptions.fromArgs(args));
+        Solution solution = engine.solve(budgetMs);
+        quality.record(solution);
+        return solution;
+    }
+}
@@ -0,0 +1,542 @@
+package dev.mjuarez.challenge;
+
+import dev.mjuarez.util.CalculationsUtil;
+import dev.mjuarez.util.DriveTimes;
+import dev.mjuarez.util.LoadSet;
+import dev.mjuarez.util.Route;
+import dev.mjuarez.util.Solution;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
+
+/**
+ * Adaptive large neighborhood search over complete solutions.  Every iteration takes a few loads out of the current
+ * solution with one of the destroy operators, puts them back with one of the repair operators, and accepts the result
+ * with the same Metropolis criterion as SimulatedAnnealing.
+ * Operators are picked at random, in proportion to their weights, and every few iterations the weights move towards the
+ * average score of every operator: a new best solution scores the most, then a solution better than the current one,
+ * and then any other accepted solution.  Operators that keep paying off get picked more often as the search goes on.
+ * Destroy operators: random loads, the loads that save the most when taken out, loads related to a random one by the
+ * distance in between their pickups and their dropoffs (Shaw), and whole routes, preferring the short ones.
+ * Repair operators: greedy, which always makes the cheapest insertion of any load first, and regret, which first inserts
+ * the load that would lose the most by waiting, as measured over its best 3 routes.
+ * Operators are just methods with the signature of Destroy or Repair, adding one only takes adding it to the list.
+ * This is not thread-safe, every worker should have its own instance.
+ */
+public class AdaptiveLargeNeighborhoodSearch {
+
+    @FunctionalInterface
+    interface Destroy {
+        /**
+         * Takes count loads out of the routes, into removed
+         */
+        void destroy(int count);
+    }
+
+    @FunctionalInterface
+    interface Repair {
+        /**
+         * Puts every removed load back into the routes, in new routes if they don't fit anywhere else
+         */
+        void repair();
+    }
+
+    private static final double EPSILON = 1e-9;
+
+    // Loads taken out on every iteration, a random number in between these two, as long as there are enough loads
+    private static final int MIN_REMOVED = 2;
+    private static final int MAX_REMOVED = 40;
+    private static final double MAX_REMOVED_RATIO = 0.25;
+
+    // Scores of an operator for finding a new best solution, a solution better than the current one, or just one that
+    // was accepted, and how fast the weights follow the scores, once per segment of iterations
+    private static final double NEW_BEST_SCORE = 33;
+    private static final double IMPROVED_SCORE = 13;
+    private static final double ACCEPTED_SCORE = 9;
+    private static final double REACTION = 0.1;
+    private static final int SEGMENT_ITERATIONS = 100;
+
+    // How strongly the worst and Shaw removals prefer the first loads of their order, higher means more strictly
+    private static final double WORST_RANDOMNESS = 3;
+    private static final double SHAW_RANDOMNESS = 6;
+
+    // At the start, a solution this much more expensive than the current one is accepted half of the time
+    private static final double INITIAL_ACCEPTED_INCREASE = 0.01;
+
+    private static final int REGRET_ROUTES = 3;
+
+    private final DriveTimes driveTimes;
+    private final LoadSet loads;
+    private final CoolingSchedule coolingSchedule;
+    private final RandomGenerator random;
+
+    private final List<Destroy> destroyOperators = List.of(this::randomRemoval, this::worstRemoval, this::shawRemoval, this::routeRemoval);
+    private final List<Repair> repairOperators = List.of(this::greedyRepair, this::regretRepair);
+    private final double[] destroyWeights = new double[destroyOperators.size()];
+    private final double[] repairWeights = new double[repairOperators.size()];
+    private final double[] destroyScores = new double[destroyOperators.size()];
+    private final double[] repairScores = new double[repairOperators.size()];
+    private final int[] destroyUses = new int[destroyOperators.size()];
+    private final int[] repairUses = new int[repairOperators.size()];
+
+    // The solution being destroyed and repaired, which shares its routes with the current solution until they change
+    private List<Route> routes;
+    private final Set<Route> owned = new HashSet<>();
+    private double minutes;
+
+    // Loads taken out by the destroy operator, and waiting to be put back by the repair operator
+    private final int[] removed;
+    private int removedCount;
+    private final boolean[] isRemoved;
+
+    // Best insertion delta and position of removed[i] into routes[r], or Double.MAX_VALUE if it doesn't fit
+    private double[][] insertionDeltas;
+    private int[][] insertionPositions;
+
+    // Scratch space for the operators
+    private final int[] order;
+    private final double[] keys;
+
+    // Iterations done and accepted by the last call to search
+    private long iterations;
+    private long acceptedIterations;
+
+    public AdaptiveLargeNeighborhoodSearch(DriveTimes driveTimes, LoadSet loads, CoolingSchedule coolingSchedule, RandomGenerator random) {
+        this.driveTimes = driveTimes;
+        this.loads = loads;
+        this.coolingSchedule = coolingSchedule;
+        this.random = random;
+        int numOfLoads = driveTimes.getNumOfLoads();
+        this.removed = new int[numOfLoads];
+        this.isRemoved = new boolean[numOfLoads];
+        this.order = new int[numOfLoads];
+        this.keys = new double[numOfLoads];
+        Arrays.fill(destroyWeights, 1);
+        Arrays.fill(repairWeights, 1);
+    }
+
+    /**
+     * Searches until termination, starting from the given solution, and returns the best solution it went through.
+     * Every new best solution is also passed to onNewBest as soon as it's found.
+     */
+    public Solution search(Solution initial, Termination termination, Consumer<Solution> onNewBest) {
+        List<Route> current = new ArrayList<>(initial.getRoutes());
+        double currentMinutes = current.stream().mapToDouble(Route::getCost).sum();
+        double currentCost = CalculationsUtil.calculateTotalCost(current.size(), currentMinutes);
+        Solution best = initial;
+        double bestCost = initial.getTotalCost();
+        int numOfLoads = driveTimes.getNumOfLoads();
+        int maxRemoved = Math.min(MAX_REMOVED, Math.max(MIN_REMOVED, (int) (numOfLoads * MAX_REMOVED_RATIO)));
+        int minRemoved = Math.min(MIN_REMOVED, maxRemoved);
+        double temperatureScale = INITIAL_ACCEPTED_INCREASE / Math.log(2);
+
+        long start = System.currentTimeMillis();
+        acceptedIterations = 0;
+        for (iterations = 0; numOfLoads > 0 && !termination.isReached(); iterations++) {
+            // Same as the annealing, cools down towards the expected end, which is earlier than the deadline with a stall
+            double budget = Math.max(1, termination.getExpectedEnd() - start);
+            double temperature = coolingSchedule.temperature(Math.min(1, (System.currentTimeMillis() - start) / budget)) * temperatureScale;
+
+            routes = new ArrayList<>(current);
+            owned.clear();
+            minutes = currentMinutes;
+            int destroy = pick(destroyWeights);
+            int repair = pick(repairWeights);
+            destroyOperators.get(destroy).destroy(Math.min(numOfLoads, minRemoved + random.nextInt(maxRemoved - minRemoved + 1)));
+            takeOutRemoved();
+            repairOperators.get(repair).repair();
+            removedCount = 0;
+
+            // Use the recalculated route costs, instead of the deltas, so that rounding errors don't add up over time
+            minutes = routes.stream().mapToDouble(Route::getCost).sum();
+            double cost = CalculationsUtil.calculateTotalCost(routes.size(), minutes);
+            double score = 0;
+            boolean accepted = accept(cost, currentCost, temperature);
+            boolean newBest = cost < bestCost - EPSILON;
+            if (accepted) {
+                acceptedIterations++;
+                score = newBest ? NEW_BEST_SCORE : cost < currentCost - EPSILON ? IMPROVED_SCORE : ACCEPTED_SCORE;
+                current = routes;
+                currentMinutes = minutes;
+                currentCost = cost;
+                if (newBest) {
+                    best = new Solution(List.copyOf(routes), cost);
+                    bestCost = cost;
+                    onNewBest.accept(best);
+                }
+            }
+            coolingSchedule.onMove(accepted, accepted && newBest);
+
+            destroyScores[destroy] += score;
+            destroyUses[destroy]++;
+            repairScores[repair] += score;
+            repairUses[repair]++;
+            if ((iterations + 1) % SEGMENT_ITERATIONS == 0) {
+                updateWeights(destroyWeights, destroyScores, destroyUses);
+                updateWeights(repairWeights, repairScores, repairUses);
+            }
+        }
+        return best;
+    }
+
+    public long getIterations() {
+        return iterations;
+    }
+
+    public long getAcceptedIterations() {
+        return acceptedIterations;
+    }
+
+    /**
+     * Current weight of every destroy operator: random, worst, Shaw and route removal
+     */
+    public double[] getDestroyWeights() {
+        return destroyWeights.clone();
+    }
+
+    /**
+     * Current weight of every repair operator: greedy and regret
+     */
+    public double[] getRepairWeights() {
+        return repairWeights.clone();
+    }
+
+    private boolean accept(double cost, double currentCost, double temperature) {
+        if (cost <= currentCost) {
+            return true;
+        }
+        double increase = (cost - currentCost) / currentCost;
+        return temperature > 0 && random.nextDouble() < Math.exp(-increase / temperature);
+    }
+
+    /**
+     * Roulette wheel selection, in proportion to the weights
+     */
+    private int pick(double[] weights) {
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        double target = random.nextDouble() * total;
+        for (int i = 0; i < weights.length - 1; i++) {
+            target -= weights[i];
+            if (target < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    private static void updateWeights(double[] weights, double[] scores, int[] uses) {
+        for (int i = 0; i < weights.length; i++) {
+            if (uses[i] > 0) {
+                weights[i] = weights[i] * (1 - REACTION) + REACTION * scores[i] / uses[i];
+            }
+            scores[i] = 0;
+            uses[i] = 0;
+        }
+    }
+
+    private void randomRemoval(int count) {
+        int numOfLoads = collectLoads();
+        // Partial Fisher-Yates shuffle, only as far as needed
+        for (int i = 0; i < count; i++) {
+            int j = i + random.nextInt(numOfLoads - i);
+            int load = order[j];
+            order[j] = order[i];
+            order[i] = load;
+            markRemoved(load);
+        }
+    }
+
+    /**
+     * Loads sorted by how much cheaper the solution gets without them, most expensive first
+     */
+    private void worstRemoval(int count) {
+        double cost = CalculationsUtil.calculateTotalCost(routes.size(), minutes);
+        int numOfLoads = 0;
+        for (Route route : routes) {
+            int drivers = route.getSize() == 1 ? routes.size() - 1 : routes.size();
+            for (int k = 0; k < route.getSize(); k++) {
+                keys[route.getLoad(k)] = CalculationsUtil.calculateTotalCost(drivers, minutes + route.removalDelta(k)) - cost;
+                order[numOfLoads++] = route.getLoad(k);
+            }
+        }
+        removeInOrder(numOfLoads, count, WORST_RANDOMNESS);
+    }
+
+    /**
+     * Loads sorted by how related they are to a random load, which is the distance in between their pickups plus the
+     * distance in between their dropoffs, so that they can easily change places and routes
+     */
+    private void shawRemoval(int count) {
+        int numOfLoads = collectLoads();
+        int seed = order[random.nextInt(numOfLoads)];
+        for (int i = 0; i < numOfLoads; i++) {
+            int load = order[i];
+            keys[load] = CalculationsUtil.calculateTimeInMinutes(loads.getPickupX(seed), loads.getPickupY(seed), loads.getPickupX(load), loads.getPickupY(load))
+                    + CalculationsUtil.calculateTimeInMinutes(loads.getDropoffX(seed), loads.getDropoffY(seed), loads.getDropoffX(load), loads.getDropoffY(load));
+        }
+        removeInOrder(numOfLoads, count, SHAW_RANDOMNESS);
+    }
+
+    /**
+     * Whole routes, the shorter of two random routes every time, until there are at least count loads out
+     */
+    private void routeRemoval(int count) {
+        int available = routes.size();
+        while (removedCount < count && available > 0) {
+            Route first = routes.get(random.nextInt(routes.size()));
+            Route second = routes.get(random.nextInt(routes.size()));
+            Route route = second.getSize() < first.getSize() ? second : first;
+            if (isRemoved[route.getLoad(0)]) {
+                continue;
+            }
+            for (int k = 0; k < route.getSize(); k++) {
+                markRemoved(route.getLoad(k));
+            }
+            available--;
+        }
+    }
+
+    /**
+     * Sorts the first numOfLoads loads of order by ascending key, and takes out count of them, each time the one at
+     * position y^randomness of the ones left, with y random in [0, 1), which is mostly the first one
+     */
+    private void removeInOrder(int numOfLoads, int count, double randomness) {
+        Integer[] sorted = new Integer[numOfLoads];
+        for (int i = 0; i < numOfLoads; i++) {
+            sorted[i] = order[i];
+        }
+        Arrays.sort(sorted, Comparator.comparingDouble(load -> keys[load]));
+        for (int i = 0; i < numOfLoads; i++) {
+            order[i] = sorted[i];
+        }
+        for (int left = numOfLoads; removedCount < count && left > 0; left--) {
+            int position = (int) (Math.pow(random.nextDouble(), randomness) * left);
+            markRemoved(order[position]);
+            System.arraycopy(order, position + 1, order, position, left - position - 1);
+        }
+    }
+
+    private int collectLoads() {
+        int numOfLoads = 0;
+        for (Route route : routes) {
+            for (int k = 0; k < route.getSize(); k++) {
+                order[numOfLoads++] = route.getLoad(k);
+            }
+        }
+        return numOfLoads;
+    }
+
+    private void markRemoved(int load) {
+        removed[removedCount++] = load;
+        isRemoved[load] = true;
+    }
+
+    /**
+     * Rebuilds every route that lost a load without it, and drops the routes that end up empty
+     */
+    private void takeOutRemoved() {
+        int[] remaining = order;
+        for (int r = routes.size() - 1; r >= 0; r--) {
+            Route route = routes.get(r);
+            int size = 0;
+            for (int k = 0; k < route.getSize(); k++) {
+                if (!isRemoved[route.getLoad(k)]) {
+                    remaining[size++] = route.getLoad(k);
+                }
+            }
+            if (size == 0) {
+                routes.remove(r);
+            } else if (size < route.getSize()) {
+                Route changed = new Route(driveTimes, remaining, size);
+                routes.set(r, changed);
+                owned.add(changed);
+            }
+        }
+        for (int i = 0; i < removedCount; i++) {
+            isRemoved[removed[i]] = false;
+        }
+        minutes = routes.stream().mapToDouble(Route::getCost).sum();
+    }
+
+    /**
+     * Makes the cheapest insertion of any of the removed loads, over and over, until they're all back
+     */
+    private void greedyRepair() {
+        computeInsertions();
+        while (removedCount > 0) {
+            double bestCost = Double.MAX_VALUE;
+            int bestLoad = -1;
+            int bestRoute = -1;
+            for (int i = 0; i < removedCount; i++) {
+                double newRouteCost = newRouteCost(removed[i]);
+                if (newRouteCost < bestCost) {
+                    bestCost = newRouteCost;
+                    bestLoad = i;
+                    bestRoute = -1;
+                }
+                for (int r = 0; r < routes.size(); r++) {
+                    if (insertionDeltas[i][r] < Double.MAX_VALUE) {
+                        double cost = CalculationsUtil.calculateTotalCost(routes.size(), minutes + insertionDeltas[i][r]);
+                        if (cost < bestCost) {
+                            bestCost = cost;
+                            bestLoad = i;
+                            bestRoute = r;
+                        }
+                    }
+                }
+            }
+            insert(bestLoad, bestRoute);
+        }
+    }
+
+    /**
+     * Inserts the load with the highest regret first, which is how much more it costs to put it in its 2nd up to
+     * REGRET_ROUTES-th best route instead of the best one.  A new route counts as one more route, and loads that fit in
+     * fewer routes than that go first.  Ties go to the cheapest insertion.
+     */
+    private void regretRepair() {
+        computeInsertions();
+        double[] costs = new double[REGRET_ROUTES];
+        while (removedCount > 0) {
+            double bestRegret = -1;
+            double bestCost = Double.MAX_VALUE;
+            int bestLoad = -1;
+            int bestRoute = -1;
+            for (int i = 0; i < removedCount; i++) {
+                Arrays.fill(costs, Double.MAX_VALUE);
+                double loadCost = newRouteCost(removed[i]);
+                int loadRoute = -1;
+                int options = addOption(costs, 0, loadCost);
+                for (int r = 0; r < routes.size(); r++) {
+                    if (insertionDeltas[i][r] == Double.MAX_VALUE) {
+                        continue;
+                    }
+                    double cost = CalculationsUtil.calculateTotalCost(routes.size(), minutes + insertionDeltas[i][r]);
+                    options = addOption(costs, options, cost);
+                    if (cost < loadCost) {
+                        loadCost = cost;
+                        loadRoute = r;
+                    }
+                }
+
+                double regret = Double.MAX_VALUE;
+                if (options >= REGRET_ROUTES) {
+                    regret = 0;
+                    for (int h = 1; h < REGRET_ROUTES; h++) {
+                        regret += costs[h] - costs[0];
+                    }
+                }
+                if (regret > bestRegret || (regret == bestRegret && loadCost < bestCost)) {
+                    bestRegret = regret;
+                    bestCost = loadCost;
+                    bestLoad = i;
+                    bestRoute = loadRoute;
+                }
+            }
+            insert(bestLoad, bestRoute);
+        }
+    }
+
+    /**
+     * Finds the best position of every removed load in every route.  After that, only the route that changed with
+     * every insertion needs to be looked at again, which takes the repair from O(removed^2 * loads) to
+     * O(removed * loads).
+     */
+    private void computeInsertions() {
+        // Every load could end up in a new route of its own
+        int columns = routes.size() + removedCount;
+        insertionDeltas = new double[removedCount][columns];
+        insertionPositions = new int[removedCount][columns];
+        for (int i = 0; i < removedCount; i++) {
+            for (int r = 0; r < routes.size(); r++) {
+                computeInsertion(i, r);
+            }
+        }
+    }
+
+    private void computeInsertion(int index, int routeIndex) {
+        Route route = routes.get(routeIndex);
+        int load = removed[index];
+        double bestDelta = Double.MAX_VALUE;
+        int bestPosition = -1;
+        for (int position = 0; position <= route.getSize(); position++) {
+            double delta = route.insertionDelta(load, position);
+            if (delta < bestDelta && route.isFeasible(delta)) {
+                bestDelta = delta;
+                bestPosition = position;
+            }
+        }
+        insertionDeltas[index][routeIndex] = bestDelta;
+        insertionPositions[index][routeIndex] = bestPosition;
+    }
+
+    /**
+     * Keeps the lowest costs seen so far in ascending order, and returns how many options there are in total
+     */
+    private static int addOption(double[] costs, int options, double cost) {
+        int position = Math.min(options, costs.length);
+        while (position > 0 && costs[position - 1] > cost) {
+            if (position < costs.length) {
+                costs[position] = costs[position - 1];
+            }
+            position--;
+        }
+        if (position < costs.length) {
+            costs[position] = cost;
+        }
+        return options + 1;
+    }
+
+    private double newRouteCost(int load) {
+        double routeMinutes = driveTimes.depotToPickup(load) + driveTimes.pickupToDropoff(load) + driveTimes.dropoffToDepot(load);
+        return CalculationsUtil.calculateTotalCost(routes.size() + 1, minutes + routeMinutes);
+    }
+
+    /**
+     * Puts removed[index] back at its best position of the given route, or in a new route if the route is -1, and
+     * updates the insertions of every other removed load into that route
+     */
+    private void insert(int index, int routeIndex) {
+        int load = removed[index];
+        int position = routeIndex < 0 ? 0 : insertionPositions[index][routeIndex];
+        removedCount--;
+        removed[index] = removed[removedCount];
+        double[] deltas = insertionDeltas[index];
+        insertionDeltas[index] = insertionDeltas[removedCount];
+        insertionDeltas[removedCount] = deltas;
+        int[] positions = insertionPositions[index];
+        insertionPositions[index] = insertionPositions[removedCount];
+        insertionPositions[removedCount] = positions;
+
+        if (routeIndex < 0) {
+            Route route = new Route(driveTimes, new int[]{load}, 1);
+            routes.add(route);
+            owned.add(route);
+            minutes += route.getCost();
+            routeIndex = routes.size() - 1;
+        } else {
+            // Routes are shared with the current solution until they're changed for the first time
+            Route route = routes.get(routeIndex);
+            if (!owned.contains(route)) {
+                route = new Route(route);
+                routes.set(routeIndex, route);
+                owned.add(route);
+            }
+            double previousMinutes = route.getCost();
+            route.insert(load, position);
+            minutes += route.getCost() - previousMinutes;
+        }
+        for (int i = 0; i < removedCount; i++) {
+            computeInsertion(i, routeIndex);
+        }
+    }
+}
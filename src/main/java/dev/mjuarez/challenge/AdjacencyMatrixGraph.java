@@ -1,52 +1,128 @@
 package dev.mjuarez.challenge;
 
 import dev.mjuarez.util.CalculationsUtil;
-import dev.mjuarez.util.Load;
+import dev.mjuarez.util.CandidateGraph;
+import dev.mjuarez.util.LoadSet;
+import dev.mjuarez.util.LowerBound;
+import dev.mjuarez.util.PickupGrid;
 import dev.mjuarez.util.Route;
 import dev.mjuarez.util.Solution;
 
 import java.util.*;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntToDoubleFunction;
+import java.util.random.RandomGenerator;
 
 import static dev.mjuarez.challenge.MainApplication.DEPOT_ID;
 
 public class AdjacencyMatrixGraph {
-    private int numOfNodes;
-    private double[][] matrix;
-    private boolean[][] isSet;
+
+    public enum SearchMode {
+        RECURSIVE,
+        ITERATIVE
+    }
+
+    private final int numOfNodes;
+    private final CandidateGraph distanceModel;
+
+    // Loads that are already part of a route, this is the only state that changes in between routes
+    private final BitSet removed;
+    private int solvedNodes = 0;
 
     private List<Integer> bestPath = new ArrayList<>();
 
     private double minCost = Double.MAX_VALUE;
     private boolean pathFound = Boolean.FALSE;
 
-    private Set<Integer> solved = new HashSet<>();
-    private Set<Integer> unsolved = new HashSet<>();
-    private Set<Integer> priority = new HashSet<>();
+    // Pickup nodes that should always be visited first, indexed by node
+    private final BitSet priority = new BitSet();
 
     private final double INITIAL_TEMPERATURE = 1.00f;
     private final double FINAL_TEMPERATURE = 0.01f;
     private double temperature = INITIAL_TEMPERATURE;
     private final boolean enableSimulatedAnnealing;
+    private final RandomGenerator random;
+    private final SearchMode searchMode;
+
+    // Scratch space for both searches, allocated once and reused for every route
+    private final BitSet inRoute;
+    private final int[] pathNodes;
+    private final double[] pathCosts;
+    private final int[] candidates;
+    private final double[] candidateCosts;
+
+    // Optional, only used by the iterative search
+    private PickupGrid pickupGrid;
+    private int nearestNeighbors;
+    private boolean pruneUnreachable;
+    private final PickupGrid.Filter candidateFilter = this::isCandidate;
+    private final PickupGrid.Filter unroutedFilter = this::isUnrouted;
+    private int currentLoad;
+    private double currentCost;
+
+    // Optional, stops findSolution once the routes so far can't lead to a solution cheaper than maxCost
+    private LowerBound lowerBound;
+    private DoubleSupplier maxCost;
+
+    // Optional, stops findSolution in between routes once it's reached
+    private Termination termination;
+
+    // Counted across every route of findSolution, for SolverStats
+    private long searchSteps;
+    private int maxSearchDepth;
+    private long shuffles;
+
+    public AdjacencyMatrixGraph(CandidateGraph distanceModel, boolean enableSimulatedAnnealing, RandomGenerator random, SearchMode searchMode) {
+        // Number of total nodes will be loads * 2, plus 1 for Origin
+        this.numOfNodes = distanceModel.getNumOfLoads() * 2 + 1;
+        this.distanceModel = distanceModel;
+        this.removed = new BitSet(distanceModel.getNumOfLoads());
+        this.enableSimulatedAnnealing = enableSimulatedAnnealing;
+        this.random = random;
+        this.searchMode = searchMode;
+
+        this.inRoute = new BitSet(distanceModel.getNumOfLoads());
+        this.pathNodes = new int[numOfNodes];
+        this.pathCosts = new double[numOfNodes];
+        this.candidates = new int[distanceModel.getNumOfLoads()];
+        this.candidateCosts = new double[distanceModel.getNumOfLoads()];
+    }
 
-    public AdjacencyMatrixGraph(int numOfNodes, boolean enableSimulatedAnnealing) {
-        this.numOfNodes = numOfNodes;
+    /**
+     * Only look at the k nearest pickups from the current dropoff (or depot), instead of scanning every load
+     */
+    public void setCandidateIndex(PickupGrid pickupGrid, int nearestNeighbors) {
+        this.pickupGrid = pickupGrid;
+        this.nearestNeighbors = Math.min(nearestNeighbors, distanceModel.getNumOfLoads());
+    }
 
-        // Simply initializes our adjacency matrix to the appropriate size, this should include origin
-        this.matrix = new double[numOfNodes][numOfNodes];
-        this.isSet = new boolean[numOfNodes][numOfNodes];
-        this.enableSimulatedAnnealing = enableSimulatedAnnealing;
+    /**
+     * Skip any load that, once picked up and dropped off, can't make it back to the depot within the max drive time
+     */
+    public void setPruneUnreachable(boolean pruneUnreachable) {
+        this.pruneUnreachable = pruneUnreachable;
+    }
 
-        // Initialize the unsolved with everything, except the DEPOT node
-        for (int i = 0; i < numOfNodes; i++) {
-            unsolved.add(i);
-        }
+    /**
+     * Gives up on the solution as soon as the lower bound of the routes so far, plus the loads that are left, is over
+     * maxCost.  maxCost is checked after every route, so it can go down while the search runs.
+     */
+    public void setCostBound(LowerBound lowerBound, DoubleSupplier maxCost) {
+        this.lowerBound = lowerBound;
+        this.maxCost = maxCost;
+    }
+
+    public void setTermination(Termination termination) {
+        this.termination = termination;
     }
 
     /**
-     * Main method that iterates until it finds a solution for the problem
+     * Main method that iterates until it finds a solution for the problem, or null if it was cut short by the cost
+     * bound (see setCostBound) or the termination (see setTermination)
      */
     public Solution findSolution() {
         List<Route> routes = new ArrayList<>();
+        double routedMinutes = 0;
 
         while (true) {
             // Reset these three in between each iteration
@@ -54,43 +130,85 @@ public class AdjacencyMatrixGraph {
             pathFound = Boolean.FALSE;
             bestPath = new ArrayList<>();
 
-            List<Integer> currentPath = new ArrayList<>();
+            if (searchMode == SearchMode.ITERATIVE) {
+                iterativeNearestNeighborSearch();
+            } else {
+                inRoute.clear();
+                List<Integer> currentPath = new ArrayList<>();
 
-            // Start the currentPath by starting at origin
-            currentPath.add(DEPOT_ID);
+                // Start the currentPath by starting at origin
+                currentPath.add(DEPOT_ID);
+
+                // Go recursive search in here, using nearest neighbor with prioritized loads
+                recursiveNearestNeighborSearch(DEPOT_ID, new HashSet<>(), DEPOT_ID, currentPath);
+            }
 
-            // Go recursive search in here, using nearest neighbor with prioritized loads
-            recursiveNearestNeighborSearch(DEPOT_ID, new HashSet<>(), DEPOT_ID, currentPath);
+            // Every load can be done on its own, so a route without any means the search is broken, and it would never end
+            if (bestPath.isEmpty()) {
+                throw new IllegalStateException(String.format("No route found for any of the [%d] loads left",
+                        distanceModel.getNumOfLoads() - removed.cardinality()));
+            }
 
             // Now, mark non-reachable anything that was solved by the previous.
-            markNonReachable(bestPath);
-            setSolvedAndUnsolved(bestPath);
+            setSolved(bestPath);
 
             // Now go ahead and save this, along with the cost
-            routes.add(new Route(bestPath, minCost));
+            Route route = toRoute(bestPath);
+            routes.add(route);
+            routedMinutes += route.getCost();
 
-            // If there are no unsolved nodes any more, we're done!
-            if (unsolved.isEmpty()) {
+            // If there are no unsolved loads any more, we're done!
+            if (removed.cardinality() == distanceModel.getNumOfLoads()) {
                 // Now, we have all the routes, with their cost.  Apply the formula.
                 double totalCost = CalculationsUtil.calculateTotalCost(routes.size(), routes.stream().mapToDouble(Route::getCost).sum());
                 return new Solution(routes, totalCost);
             }
+            if (termination != null && termination.isReached()) {
+                return null;
+            }
+            if (lowerBound != null && lowerBound.getCost(routes.size(), routedMinutes, remainingMandatoryMinutes()) > maxCost.getAsDouble()) {
+                return null;
+            }
         }
     }
 
-    public void addEdge(int source, int destination, double weight) {
-        double valueToAdd = weight;
+    private double remainingMandatoryMinutes() {
+        double minutes = 0;
+        int numOfLoads = distanceModel.getNumOfLoads();
+        for (int load = removed.nextClearBit(0); load < numOfLoads; load = removed.nextClearBit(load + 1)) {
+            minutes += lowerBound.getMandatoryMinutes(load);
+        }
+        return minutes;
+    }
+
+    /**
+     * Nodes expanded by the search, in every route so far
+     */
+    public long getSearchSteps() {
+        return searchSteps;
+    }
+
+    /**
+     * Most nodes in a single path of the search, not counting the depot
+     */
+    public int getMaxSearchDepth() {
+        return maxSearchDepth;
+    }
 
-        matrix[source][destination] = valueToAdd;
-        isSet[source][destination] = true;
+    /**
+     * How many times the neighbors were shuffled instead of sorted, because of simulated annealing
+     */
+    public long getShuffles() {
+        return shuffles;
     }
 
     public void printMatrix() {
         System.out.println("\n");
         for (int i = 0; i < numOfNodes; i++) {
             for (int j = 0; j < numOfNodes; j++) {
-                if (isSet[i][j]) {
-                    System.out.format("%8.2f", matrix[i][j]);
+                double edgeCost = edgeCost(i, j);
+                if (edgeCost > 0) {
+                    System.out.format("%8.2f", edgeCost);
                 } else {
                     System.out.format("%8s", "X  ");
                 }
@@ -103,7 +221,7 @@ public class AdjacencyMatrixGraph {
         for (int i = 0; i < numOfNodes; i++) {
             System.out.print("Node " + i + " is connected to: ");
             for (int j = 0; j < numOfNodes; j++) {
-                if (isSet[i][j]) {
+                if (edgeCost(i, j) > 0) {
                     System.out.print(j + " ");
                 }
             }
@@ -111,26 +229,61 @@ public class AdjacencyMatrixGraph {
         }
     }
 
-    private void setSolvedAndUnsolved(List<Integer> bestPath) {
-        solved.addAll(bestPath);
-        unsolved.removeAll(bestPath);
+    /**
+     * Returns the drive time between two nodes, or zero if there's no edge between them, either because they are not
+     * connected at all, or because the destination was already solved by a previous route
+     */
+    private double edgeCost(int source, int destination) {
+        if (source == DEPOT_ID) {
+            return isPickup(destination) && !removed.get(getLoadIndex(destination)) ? distanceModel.depotToPickup(getLoadIndex(destination)) : 0;
+        }
+        int sourceLoad = getLoadIndex(source);
+        if (removed.get(sourceLoad)) {
+            return 0;
+        }
+        if (isPickup(source)) {
+            return destination == source + 1 ? distanceModel.pickupToDropoff(sourceLoad) : 0;
+        }
+        if (destination == DEPOT_ID) {
+            return distanceModel.dropoffToDepot(sourceLoad);
+        }
+        int destinationLoad = getLoadIndex(destination);
+        if (!isPickup(destination) || destinationLoad == sourceLoad || removed.get(destinationLoad)) {
+            return 0;
+        }
+        return distanceModel.dropoffToPickup(sourceLoad, destinationLoad);
     }
 
-    private void markNonReachable(List<Integer> bestPath) {
-        for (Integer node : bestPath) {
-            if (node == DEPOT_ID) {
-                continue;
-            }
-            for (int i = 0; i < numOfNodes; i++) {
-                matrix[i][node] = 0;
-                isSet[i][node] = false;
+    private static boolean isPickup(int node) {
+        return node % 2 == 1;
+    }
+
+    private static int getLoadIndex(int node) {
+        // Pickup and dropoff nodes are 1, 2 for first load, 3, 4 for second load, etc.
+        return (node - 1) / 2;
+    }
+
+    /**
+     * Route with the loads of the path, in the order they are picked up
+     */
+    private Route toRoute(List<Integer> path) {
+        int[] loads = new int[path.size() / 2];
+        int size = 0;
+        for (Integer node : path) {
+            if (node != DEPOT_ID && isPickup(node)) {
+                loads[size++] = getLoadIndex(node);
             }
         }
-        // Special for DEPOT
-        for (Integer i : bestPath) {
-            matrix[i][DEPOT_ID] = 0;
-            isSet[i][DEPOT_ID] = false;
+        return new Route(distanceModel, loads, size);
+    }
+
+    private void setSolved(List<Integer> bestPath) {
+        for (Integer node : bestPath) {
+            if (node != DEPOT_ID && isPickup(node)) {
+                removed.set(getLoadIndex(node));
+            }
         }
+        solvedNodes = removed.cardinality() * 2 + 1;
     }
 
     public void recursiveNearestNeighborSearch(int current, Set<Integer> visited, double currentCost, List<Integer> currentPath) {
@@ -142,24 +295,29 @@ public class AdjacencyMatrixGraph {
         }
 
         visited.add(current);
-        int n = matrix.length;
+        boolean pickup = current != DEPOT_ID && isPickup(current);
+        if (pickup) {
+            inRoute.set(getLoadIndex(current));
+        }
+        searchSteps++;
+        maxSearchDepth = Math.max(maxSearchDepth, currentPath.size() - 1);
         List<PointCostTuple> neighbors = new ArrayList<>();
 
-        // Collect all neighbors and their costs
-        for (int neighbor = 0; neighbor < n; neighbor++) {
-            double edgeCost = matrix[current][neighbor];
-            if (edgeCost > 0 && !visited.contains(neighbor)) {
-                neighbors.add(new PointCostTuple(neighbor, edgeCost));
+        // Collect all neighbors and their costs, only through the edges the graph has, same as the iterative search
+        int count = pickup ? collectDropoff(current) : collectGraphCandidates(current, unroutedFilter);
+        for (int i = 0; i < count; i++) {
+            if (!visited.contains(candidates[i])) {
+                neighbors.add(new PointCostTuple(candidates[i], candidateCosts[i]));
             }
         }
 
         recalculateTemperature();
-        if (!(enableSimulatedAnnealing && Math.random() < temperature)) {
+        if (!(enableSimulatedAnnealing && random.nextDouble() < temperature)) {
             // Sort neighbors first by presence in the priority list, and only later by closest distance/nearest neighbor
             neighbors.sort((a, b) -> {
-                if (priority.contains(a.node) && !priority.contains(b.node)) {
+                if (priority.get(a.node) && !priority.get(b.node)) {
                     return -1;
-                } else if (!priority.contains(a.node) && priority.contains(b.node)) {
+                } else if (!priority.get(a.node) && priority.get(b.node)) {
                     return 1;
                 } else {
                     return Double.compare(a.cost, b.cost);
@@ -167,7 +325,10 @@ public class AdjacencyMatrixGraph {
             });
         } else {
             // If simulated annealing is enabled, and random was below temperature, shuffle the neighbors
-            Collections.shuffle(neighbors);
+            Collections.shuffle(neighbors, random);
+            if (!neighbors.isEmpty()) {
+                shuffles++;
+            }
         }
 
         // Explore the neighbors
@@ -183,11 +344,11 @@ public class AdjacencyMatrixGraph {
         // If pathFound is True, we need to set the bestPath, and return all the way to the top
         // We need to be on a node that has a way to return to DEPOT, _AND_ bestPath not set, so that we don't set it multiple times
         // This also handles the possibility that there are no more neighbors/visitable nodes
-        if (neighbors.isEmpty() || pathFound && isSet[current][DEPOT_ID]) {
+        if (neighbors.isEmpty() || pathFound && edgeCost(current, DEPOT_ID) > 0) {
             // Set pathFound to TRUE if we came here because there are no more neighbors available, so we'll just go ahead and go back to depot
             pathFound = Boolean.TRUE;
             if (bestPath.isEmpty()) {
-                double distanceToDepot = matrix[current][DEPOT_ID];
+                double distanceToDepot = edgeCost(current, DEPOT_ID);
                 if ((currentCost + distanceToDepot) < CalculationsUtil.MAX_DRIVE_TIME_MINUTES) {
                     // This is eject, this flag will return all the way to the top
                     minCost = currentCost + distanceToDepot;
@@ -198,36 +359,239 @@ public class AdjacencyMatrixGraph {
             }
         }
         visited.remove(current);
+        if (pickup) {
+            inRoute.clear(getLoadIndex(current));
+        }
+    }
+
+    /**
+     * Same search as recursiveNearestNeighborSearch, but using an explicit stack of primitive arrays instead of recursion.
+     * The recursive search never backtracks into a second neighbor once it's past the max drive time, so this dives
+     * through the nearest neighbors until it runs out of time or loads, and then unwinds the stack until it finds a
+     * dropoff that can make it back to the depot in time.
+     * Random numbers are drawn in the same order as the recursive search, so the same seed returns the same routes.
+     */
+    private void iterativeNearestNeighborSearch() {
+        inRoute.clear();
+        int depth = 0;
+        pathNodes[0] = DEPOT_ID;
+        pathCosts[0] = 0;
+        boolean noMoreNeighbors;
+
+        while (true) {
+            int current = pathNodes[depth];
+            int count = collectCandidates(current, pathCosts[depth]);
+            searchSteps++;
+            maxSearchDepth = Math.max(maxSearchDepth, depth);
+
+            // The random number is drawn even if there are no neighbors left, same as the recursive search does
+            recalculateTemperature();
+            boolean shuffle = enableSimulatedAnnealing && random.nextDouble() < temperature;
+            noMoreNeighbors = count == 0;
+            if (noMoreNeighbors) {
+                break;
+            }
+
+            int next;
+            if (!shuffle) {
+                next = findNearestCandidate(count);
+            } else {
+                // Same as Collections.shuffle, so that we consume the exact same random numbers
+                for (int i = count; i > 1; i--) {
+                    swapCandidates(i - 1, random.nextInt(i));
+                }
+                next = 0;
+                shuffles++;
+            }
+
+            double nextCost = pathCosts[depth] + candidateCosts[next];
+            if (nextCost > CalculationsUtil.MAX_DRIVE_TIME_MINUTES) {
+                break;
+            }
+            depth++;
+            pathNodes[depth] = candidates[next];
+            pathCosts[depth] = nextCost;
+            inRoute.set(getLoadIndex(candidates[next]));
+        }
+
+        // Now unwind, and stop at the deepest node that can still go back to the depot within the max drive time
+        for (int top = depth; depth > 0; depth--) {
+            int current = pathNodes[depth];
+            double distanceToDepot = edgeCost(current, DEPOT_ID);
+            if ((depth == top && noMoreNeighbors) || distanceToDepot > 0) {
+                if ((pathCosts[depth] + distanceToDepot) < CalculationsUtil.MAX_DRIVE_TIME_MINUTES) {
+                    minCost = pathCosts[depth] + distanceToDepot;
+                    bestPath = new ArrayList<>(depth + 2);
+                    for (int i = 0; i <= depth; i++) {
+                        bestPath.add(pathNodes[i]);
+                    }
+                    bestPath.add(DEPOT_ID);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Fills candidates with every node reachable from current that is not part of the route yet, in ascending node order
+     */
+    private int collectCandidates(int current, double costSoFar) {
+        if (current != DEPOT_ID && isPickup(current)) {
+            return collectDropoff(current);
+        }
+
+        currentLoad = current == DEPOT_ID ? -1 : getLoadIndex(current);
+        currentCost = costSoFar;
+        if (pickupGrid != null) {
+            return collectNearestCandidates(current);
+        }
+        return collectGraphCandidates(current, candidateFilter);
+    }
+
+    /**
+     * A pickup can only go to its own dropoff
+     */
+    private int collectDropoff(int pickup) {
+        double edgeCost = edgeCost(pickup, pickup + 1);
+        if (edgeCost > 0) {
+            candidates[0] = pickup + 1;
+            candidateCosts[0] = edgeCost;
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Pickups accepted by the filter, from the depot or a dropoff, through the edges of the candidate graph
+     */
+    private int collectGraphCandidates(int current, PickupGrid.Filter filter) {
+        int count = 0;
+        if (current != DEPOT_ID) {
+            // Only the edges the graph has from this dropoff, which is every load that's left unless the graph is sparse
+            int found = distanceModel.collectCandidates(getLoadIndex(current), removed, filter, candidates, candidateCosts);
+            for (int i = 0; i < found; i++) {
+                if (candidateCosts[i] > 0) {
+                    candidates[count] = candidates[i] * 2 + 1;
+                    candidateCosts[count++] = candidateCosts[i];
+                }
+            }
+            if (count > 0) {
+                return count;
+            }
+        }
+
+        // Every load that's left, from the depot or once a sparse graph runs out of edges, since otherwise loads that
+        // aren't a candidate of anything would end up on a route of their own
+        int numOfLoads = distanceModel.getNumOfLoads();
+        for (int load = removed.nextClearBit(0); load < numOfLoads; load = removed.nextClearBit(load + 1)) {
+            if (!filter.accept(load)) {
+                continue;
+            }
+            int pickup = load * 2 + 1;
+            double edgeCost = edgeCost(current, pickup);
+            if (edgeCost > 0) {
+                candidates[count] = pickup;
+                candidateCosts[count++] = edgeCost;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Same as collectCandidates, but only the k nearest pickups from the spatial index, sorted by distance
+     */
+    private int collectNearestCandidates(int current) {
+        int found = current == DEPOT_ID
+                ? pickupGrid.findNearest(CalculationsUtil.DEPOT_X, CalculationsUtil.DEPOT_Y, nearestNeighbors, candidateFilter, candidates, candidateCosts)
+                : pickupGrid.findNearestToDropoff(currentLoad, nearestNeighbors, candidateFilter, candidates, candidateCosts);
+
+        int count = 0;
+        for (int i = 0; i < found; i++) {
+            int pickup = candidates[i] * 2 + 1;
+            double edgeCost = edgeCost(current, pickup);
+            if (edgeCost > 0) {
+                candidates[count] = pickup;
+                candidateCosts[count++] = edgeCost;
+            }
+        }
+        return count;
+    }
+
+    private boolean isUnrouted(int load) {
+        return !removed.get(load) && !inRoute.get(load);
+    }
+
+    private boolean isCandidate(int load) {
+        if (!isUnrouted(load)) {
+            return false;
+        }
+        if (pruneUnreachable) {
+            double toPickup = currentLoad < 0 ? distanceModel.depotToPickup(load) : distanceModel.dropoffToPickup(currentLoad, load);
+            double roundTrip = toPickup + distanceModel.pickupToDropoff(load) + distanceModel.dropoffToDepot(load);
+            return currentCost + roundTrip < CalculationsUtil.MAX_DRIVE_TIME_MINUTES;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the position of the candidate that would be sorted first, prioritized loads first and then closest distance
+     */
+    private int findNearestCandidate(int count) {
+        int nearest = 0;
+        for (int i = 1; i < count; i++) {
+            boolean isPriority = priority.get(candidates[i]);
+            boolean isNearestPriority = priority.get(candidates[nearest]);
+            if ((isPriority && !isNearestPriority) || (isPriority == isNearestPriority && candidateCosts[i] < candidateCosts[nearest])) {
+                nearest = i;
+            }
+        }
+        return nearest;
+    }
+
+    private void swapCandidates(int i, int j) {
+        int node = candidates[i];
+        candidates[i] = candidates[j];
+        candidates[j] = node;
+        double cost = candidateCosts[i];
+        candidateCosts[i] = candidateCosts[j];
+        candidateCosts[j] = cost;
     }
 
     private void recalculateTemperature() {
         // This should start high at the beginning, to add some more randomness, and taper down quickly as more routes are solved
-        double ratio = ((double) solved.size() / (double) numOfNodes);
+        double ratio = ((double) solvedNodes / (double) numOfNodes);
         double lambda = Math.log(INITIAL_TEMPERATURE / FINAL_TEMPERATURE);
         temperature = INITIAL_TEMPERATURE * Math.exp(-lambda * ratio);
     }
 
     /**
-     * This builds an internal representation of the loads, sorted by priority of different distances,
-     * from origin to P1, between P1 and P2, and from P2 to origin
-     * Fetch the top 20% of the "worst" loads, and try to always prioritize those
+     * Fetch the top 20% of the "worst" loads, by each of these drive times: from origin to P1, between P1 and P2, and from
+     * P2 to origin, and returns their pickup nodes.  The selection only depends on the loads, so it's done once per problem
+     * and then shared by every restart through setPriorityLoads.
      */
-    public void addLoads(Load[] loads) {
-        List<Load> loadsBySize = Arrays.asList(Arrays.copyOf(loads, loads.length));
-        loadsBySize.sort(Comparator.comparingDouble(Load::getDistanceFromP1ToP2).reversed());
-        loadsBySize = loadsBySize.subList(0, (int) (loads.length * 0.2));
-
-        List<Load> loadsByOriginToP1 = Arrays.asList(Arrays.copyOf(loads, loads.length));
-        loadsByOriginToP1.sort(Comparator.comparingDouble(Load::getDistanceFromOriginToP1).reversed());
-        loadsByOriginToP1 = loadsByOriginToP1.subList(0, (int) (loads.length * 0.2));
+    public static BitSet selectPriorityLoads(LoadSet loads) {
+        BitSet priorityNodes = new BitSet();
+        addWorstLoads(loads, loads::pickupToDropoff, priorityNodes);
+        addWorstLoads(loads, loads::depotToPickup, priorityNodes);
+        addWorstLoads(loads, loads::dropoffToDepot, priorityNodes);
+        return priorityNodes;
+    }
 
-        List<Load> loadsByP2ToOrigin = Arrays.asList(Arrays.copyOf(loads, loads.length));
-        loadsByP2ToOrigin.sort(Comparator.comparingDouble(Load::getDistanceFromP2ToOrigin).reversed());
-        loadsByP2ToOrigin = loadsByP2ToOrigin.subList(0, (int) (loads.length * 0.2));
+    private static void addWorstLoads(LoadSet loads, IntToDoubleFunction driveTime, BitSet priorityNodes) {
+        Integer[] sorted = new Integer[loads.getNumOfLoads()];
+        Arrays.setAll(sorted, load -> load);
+        // This sort is stable, so loads with the same drive time stay in the same order as in the file
+        Arrays.sort(sorted, Comparator.<Integer>comparingDouble(driveTime::applyAsDouble).reversed());
+        for (int i = 0; i < (int) (sorted.length * 0.2); i++) {
+            priorityNodes.set(sorted[i] * 2 + 1);
+        }
+    }
 
-        priority.addAll(loadsBySize.stream().map(x -> ((int) (x.getId() * 2) - 1)).toList());
-        priority.addAll(loadsByOriginToP1.stream().map(x -> ((int) (x.getId() * 2) - 1)).toList());
-        priority.addAll(loadsByP2ToOrigin.stream().map(x -> ((int) (x.getId() * 2) - 1)).toList());
+    /**
+     * Try to always prioritize the given pickup nodes, as selected by selectPriorityLoads
+     */
+    public void setPriorityLoads(BitSet priorityNodes) {
+        priority.or(priorityNodes);
     }
 
     static class PointCostTuple {
@@ -0,0 +1,188 @@
+package dev.mjuarez.challenge;
+
+import dev.mjuarez.util.LoadFileParser;
+import dev.mjuarez.util.LoadSet;
+import dev.mjuarez.util.Solution;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Solves many independent problem files in a single JVM, instead of launching one process per file.  Every problem
+ * is solved by a single worker, and as many of them run at the same time as there are threads, all on the same pool,
+ * so the machine stays saturated no matter how small the problems are.  The global time budget is split between the
+ * problems, either equally or by number of loads, and the largest budgets go first.  No solve goes past the deadline
+ * of the whole batch, so the batch finishes within its budget.
+ * Every solution is written to its own file, in the same format as printFinalOutput, and a file that fails doesn't
+ * stop the rest.
+ */
+public class BatchSolver {
+
+    public enum BudgetSplit {
+        EQUAL,
+        BY_SIZE
+    }
+
+    private final SolverOptions options;
+
+    public BatchSolver(SolverOptions options) {
+        this.options = options;
+    }
+
+    /**
+     * Problem files in the batch: every .txt file if the path is a directory, sorted by name, or otherwise every line
+     * of the manifest, relative to the directory of the manifest.  Blank lines and lines starting with # are skipped.
+     */
+    public static List<Path> listProblems(Path batchPath) throws IOException {
+        if (Files.isDirectory(batchPath)) {
+            try (Stream<Path> files = Files.list(batchPath)) {
+                return files.filter(Files::isRegularFile)
+                        .filter(file -> file.getFileName().toString().endsWith(".txt"))
+                        .sorted()
+                        .toList();
+            }
+        }
+        Path base = batchPath.toAbsolutePath().getParent();
+        List<Path> problems = new ArrayList<>();
+        for (String line : Files.readAllLines(batchPath)) {
+            line = line.strip();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                problems.add(base.resolve(line));
+            }
+        }
+        return problems;
+    }
+
+    /**
+     * Solves every problem of the batch and returns how many of them failed
+     *
+     * @param maxRuntimeMs time budget of the whole batch, or zero to give every problem the usual budget of a single
+     *                     solve, which still takes a fraction of the time of solving them one after the other
+     */
+    public int solve(List<Path> problems, long maxRuntimeMs) throws IOException {
+        if (options.getOutputDirectory() != null) {
+            Files.createDirectories(Path.of(options.getOutputDirectory()));
+        }
+        int failed = 0;
+        List<BatchProblem> batch = new ArrayList<>(problems.size());
+        for (Path problem : problems) {
+            try {
+                batch.add(new BatchProblem(problem, LoadFileParser.parse(problem)));
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println(String.format("Cannot load file [%s]: %s", problem, e.getMessage()));
+                failed++;
+            }
+        }
+        if (batch.isEmpty()) {
+            return failed;
+        }
+
+        int parallelism = Math.min(options.getParallelism(), batch.size());
+        long waves = (batch.size() + parallelism - 1) / parallelism;
+        long budgetMs = maxRuntimeMs > 0 ? maxRuntimeMs : MainApplication.MAX_ALLOWED_RUNTIME_MS * waves;
+        long deadline = System.currentTimeMillis() + budgetMs;
+        assignBudgets(batch, budgetMs, parallelism, waves);
+
+        // Longest first, so the short ones fill the gaps at the end instead of leaving a single long one running alone
+        batch.sort(Comparator.comparingLong((BatchProblem problem) -> problem.budgetMs).reversed());
+        SolverOptions problemOptions = options.forBatch();
+
+        // A single pool for the whole batch, and every solve runs its worker on the same thread that picked it up
+        ForkJoinPool executor = new ForkJoinPool(parallelism);
+        try {
+            List<Future<Boolean>> solves = new ArrayList<>(batch.size());
+            for (BatchProblem problem : batch) {
+                solves.add(executor.submit(() -> solveProblem(problem, problemOptions, executor, deadline)));
+            }
+            for (Future<Boolean> solve : solves) {
+                if (!solve.get()) {
+                    failed++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch worker failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return failed;
+    }
+
+    /**
+     * Splits the budget in between the problems.  Equal shares are the budget over the number of waves, since that's
+     * how many problems run one after the other on every thread.  Shares by size split the worker time of the whole
+     * batch, budget times workers, by number of loads, and no problem gets more than the budget itself, since every
+     * one of them runs on a single worker.  Either way, every solve still stops at the deadline of the whole batch.
+     */
+    private void assignBudgets(List<BatchProblem> batch, long budgetMs, int parallelism, long waves) {
+        double workerMs = (double) budgetMs * parallelism;
+        long totalLoads = 0;
+        for (BatchProblem problem : batch) {
+            totalLoads += problem.loads.getNumOfLoads();
+        }
+        for (BatchProblem problem : batch) {
+            long share = options.getBudgetSplit() == BudgetSplit.BY_SIZE && totalLoads > 0
+                    ? (long) (workerMs * problem.loads.getNumOfLoads() / totalLoads)
+                    : budgetMs / waves;
+            problem.budgetMs = Math.max(1, Math.min(budgetMs, share));
+        }
+    }
+
+    private boolean solveProblem(BatchProblem problem, SolverOptions problemOptions, ExecutorService executor, long deadline) {
+        try {
+            long start = System.currentTimeMillis();
+            long budgetMs = Math.max(1, Math.min(problem.budgetMs, deadline - start));
+            Solution solution = null;
+            if (problem.loads.getNumOfLoads() > 0 && problemOptions.getPartitions() > 1) {
+                solution = MainApplication.solve(problem.loads, problemOptions, budgetMs);
+            } else if (problem.loads.getNumOfLoads() > 0) {
+                SolverEngine engine = new SolverEngine(problem.loads, problemOptions);
+                engine.setExecutor(executor);
+                solution = engine.solve(budgetMs);
+            }
+            Path output = outputPath(problem.path);
+            Files.writeString(output, MainApplication.formatSolution(solution, problem.loads));
+            System.err.println(String.format("Solved [%s] into [%s] in [%d] ms", problem.path, output,
+                    System.currentTimeMillis() - start));
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println(String.format("Cannot solve file [%s]: %s", problem.path, e));
+            return false;
+        }
+    }
+
+    /**
+     * Same name as the problem file, with a .out extension instead, either in the output directory or next to it
+     */
+    private Path outputPath(Path problem) {
+        String name = problem.getFileName().toString();
+        int extension = name.lastIndexOf('.');
+        name = (extension > 0 ? name.substring(0, extension) : name) + ".out";
+        Path directory = options.getOutputDirectory() != null
+                ? Path.of(options.getOutputDirectory())
+                : problem.toAbsolutePath().getParent();
+        return directory.resolve(name);
+    }
+
+    private static final class BatchProblem {
+        private final Path path;
+        private final LoadSet loads;
+        private long budgetMs;
+
+        BatchProblem(Path path, LoadSet loads) {
+            this.path = path;
+            this.loads = loads;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package dev.mjuarez.challenge;
+
+/**
+ * Temperature of the simulated annealing, as a function of how much of the time budget has been used.
+ * Temperatures are relative to the average cost increase of a random move that makes the solution worse, as measured at
+ * the start of the annealing, so a temperature of 1 means that an average bad move is accepted with a probability of 1/e.
+ */
+public interface CoolingSchedule {
+
+    enum Type {
+        EXPONENTIAL,
+        LINEAR,
+        ADAPTIVE
+    }
+
+    double INITIAL_TEMPERATURE = 1;
+    double FINAL_TEMPERATURE = 0.001;
+    long MOVES_BEFORE_REHEAT = 50_000;
+
+    /**
+     * Returns the temperature for the given progress, which goes from 0 at the start of the time budget to 1 at the end
+     */
+    double temperature(double progress);
+
+    /**
+     * Called after every move, with whether it was accepted and whether it found a new best solution.
+     * Only used by adaptive schedules.
+     */
+    default void onMove(boolean accepted, boolean newBest) {
+    }
+
+    /**
+     * Creates a new schedule of the given type, with the default temperatures.  Adaptive schedules keep state, so every
+     * annealing run needs its own.
+     */
+    static CoolingSchedule create(Type type) {
+        return switch (type) {
+            case EXPONENTIAL -> exponential(INITIAL_TEMPERATURE, FINAL_TEMPERATURE);
+            case LINEAR -> linear(INITIAL_TEMPERATURE, FINAL_TEMPERATURE);
+            case ADAPTIVE -> adaptive(INITIAL_TEMPERATURE, FINAL_TEMPERATURE, MOVES_BEFORE_REHEAT);
+        };
+    }
+
+    static CoolingSchedule exponential(double initialTemperature, double finalTemperature) {
+        double lambda = Math.log(initialTemperature / finalTemperature);
+        return progress -> initialTemperature * Math.exp(-lambda * progress);
+    }
+
+    static CoolingSchedule linear(double initialTemperature, double finalTemperature) {
+        return progress -> initialTemperature - (initialTemperature - finalTemperature) * progress;
+    }
+
+    /**
+     * Exponential cooling, that reheats whenever it freezes, meaning it goes too many moves in a row without accepting
+     * any of them.  It goes back to the temperature where it found its last new best solution, and cools down from there.
+     */
+    static CoolingSchedule adaptive(double initialTemperature, double finalTemperature, long movesBeforeReheat) {
+        return new CoolingSchedule() {
+            private final CoolingSchedule exponential = exponential(initialTemperature, finalTemperature);
+            private long rejectedMoves = 0;
+            private double progress = 0;
+            private double progressAtLastBest = 0;
+            private double reheatShift = 0;
+
+            @Override
+            public double temperature(double progress) {
+                this.progress = progress;
+                return exponential.temperature(progress - reheatShift);
+            }
+
+            @Override
+            public void onMove(boolean accepted, boolean newBest) {
+                if (newBest) {
+                    progressAtLastBest = progress - reheatShift;
+                }
+                rejectedMoves = accepted ? 0 : rejectedMoves + 1;
+                if (rejectedMoves >= movesBeforeReheat) {
+                    rejectedMoves = 0;
+                    reheatShift = progress - progressAtLastBest;
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,212 @@
+package dev.mjuarez.challenge;
+
+import dev.mjuarez.util.LoadSet;
+import dev.mjuarez.util.Route;
+import dev.mjuarez.util.Solution;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps a Solution up to date as loads are added or cancelled, without solving the whole problem again.
+ * Cancelled loads are taken out of their routes, new loads go wherever they are cheapest to insert (or on a route of
+ * their own if they don't fit anywhere), and then LocalSearch repairs only the routes that changed.  Drive times come
+ * straight from the coordinates in the LoadSet, so there's no distance matrix to rebuild, and every other route is kept
+ * as it was, cached costs included, only with its loads renumbered.  Those routes still count towards the cost of every
+ * repair move, so the repair can only make the whole solution cheaper.
+ * A load whose coordinates changed can be updated by removing and inserting its id in the same call.
+ * The same goes for warm starting a new problem from the solution of a previous one, see warmStart.
+ * This is not thread-safe, updates are expected to be applied one at a time.
+ */
+public class IncrementalSolver {
+    private LoadSet loads;
+    private Solution solution;
+
+    /**
+     * @param solution a solution for the given loads
+     */
+    public IncrementalSolver(LoadSet loads, Solution solution) {
+        this.loads = loads;
+        this.solution = solution;
+    }
+
+    /**
+     * Applies a delta of loads and returns the updated solution, which from then on is numbered by getLoads()
+     *
+     * @param inserted   new loads, with ids that are not in the current loads (unless they're also removed)
+     * @param removedIds ids of the current loads that were cancelled
+     */
+    public Solution update(LoadSet inserted, int[] removedIds, Termination termination) {
+        inserted.checkReachable();
+        int numOfLoads = loads.getNumOfLoads();
+        Map<Integer, Integer> indexById = new HashMap<>(numOfLoads * 2);
+        for (int i = 0; i < numOfLoads; i++) {
+            indexById.put(loads.getId(i), i);
+        }
+        boolean[] removed = new boolean[numOfLoads];
+        int numOfRemoved = 0;
+        for (int id : removedIds) {
+            Integer index = indexById.get(id);
+            if (index == null) {
+                throw new IllegalArgumentException(String.format("Unknown load [%s]", id));
+            }
+            if (!removed[index]) {
+                removed[index] = true;
+                numOfRemoved++;
+            }
+        }
+
+        // The loads that are left keep their relative order, and the new ones go at the end
+        LoadSet updated = new LoadSet(numOfLoads - numOfRemoved + inserted.getNumOfLoads());
+        int[] newIndex = new int[numOfLoads];
+        for (int i = 0; i < numOfLoads; i++) {
+            newIndex[i] = removed[i] ? -1 : updated.getNumOfLoads();
+            if (!removed[i]) {
+                updated.add(loads, i);
+            }
+        }
+        Set<Integer> insertedIds = new HashSet<>();
+        for (int j = 0; j < inserted.getNumOfLoads(); j++) {
+            int id = inserted.getId(j);
+            Integer existing = indexById.get(id);
+            if ((existing != null && !removed[existing]) || !insertedIds.add(id)) {
+                throw new IllegalArgumentException(String.format("Load [%s] already exists", id));
+            }
+            updated.add(inserted, j);
+        }
+
+        List<Route> routes = new ArrayList<>(solution.getRoutes().size());
+        Set<Route> affected = new HashSet<>();
+        for (Route route : solution.getRoutes()) {
+            int[] remaining = new int[route.getSize()];
+            int size = 0;
+            for (int k = 0; k < route.getSize(); k++) {
+                int load = newIndex[route.getLoad(k)];
+                if (load >= 0) {
+                    remaining[size++] = load;
+                }
+            }
+            if (size == route.getSize()) {
+                routes.add(route.renumber(updated, newIndex));
+            } else if (size > 0) {
+                Route changed = new Route(updated, remaining, size);
+                routes.add(changed);
+                affected.add(changed);
+            }
+        }
+        for (int load = numOfLoads - numOfRemoved; load < updated.getNumOfLoads(); load++) {
+            insertCheapest(updated, routes, affected, load);
+        }
+
+        List<Route> result = new ArrayList<>(routes.size());
+        List<Route> repaired = new ArrayList<>(affected.size());
+        double keptMinutes = 0;
+        for (Route route : routes) {
+            if (affected.contains(route)) {
+                repaired.add(route);
+            } else {
+                result.add(route);
+                keptMinutes += route.getCost();
+            }
+        }
+        if (!repaired.isEmpty()) {
+            LocalSearch localSearch = new LocalSearch(result.size(), keptMinutes);
+            result.addAll(localSearch.improve(new Solution(repaired), termination).getRoutes());
+        }
+
+        this.loads = updated;
+        this.solution = new Solution(result);
+        return solution;
+    }
+
+    /**
+     * Turns a solution of a previous problem into a solution of the given one, matching loads by id: loads that are
+     * gone, or whose coordinates changed, are taken out, and the new ones inserted, same as update.  The result is
+     * numbered by the given loads, so it can be handed to the solver as a starting point.
+     */
+    public static Solution warmStart(LoadSet previousLoads, Solution previous, LoadSet loads, Termination termination) {
+        Map<Integer, Integer> indexById = new HashMap<>(loads.getNumOfLoads() * 2);
+        for (int i = 0; i < loads.getNumOfLoads(); i++) {
+            if (indexById.put(loads.getId(i), i) != null) {
+                throw new IllegalArgumentException(String.format("Load [%s] already exists", loads.getId(i)));
+            }
+        }
+
+        // Loads that are still there, exactly as they were, are kept, and everything else is removed or inserted
+        boolean[] kept = new boolean[loads.getNumOfLoads()];
+        int[] removedIds = new int[previousLoads.getNumOfLoads()];
+        int numOfRemoved = 0;
+        for (int i = 0; i < previousLoads.getNumOfLoads(); i++) {
+            Integer index = indexById.get(previousLoads.getId(i));
+            if (index != null && !kept[index] && isSameLoad(previousLoads, i, loads, index)) {
+                kept[index] = true;
+            } else {
+                removedIds[numOfRemoved++] = previousLoads.getId(i);
+            }
+        }
+        LoadSet inserted = new LoadSet(loads.getNumOfLoads());
+        for (int i = 0; i < loads.getNumOfLoads(); i++) {
+            if (!kept[i]) {
+                inserted.add(loads, i);
+            }
+        }
+
+        IncrementalSolver solver = new IncrementalSolver(previousLoads, previous);
+        Solution updated = solver.update(inserted, Arrays.copyOf(removedIds, numOfRemoved), termination);
+        int[] newIndex = new int[solver.getLoads().getNumOfLoads()];
+        for (int i = 0; i < newIndex.length; i++) {
+            newIndex[i] = indexById.get(solver.getLoads().getId(i));
+        }
+        List<Route> routes = new ArrayList<>(updated.getRoutes().size());
+        for (Route route : updated.getRoutes()) {
+            routes.add(route.renumber(loads, newIndex));
+        }
+        return new Solution(routes);
+    }
+
+    private static boolean isSameLoad(LoadSet a, int i, LoadSet b, int j) {
+        return a.getPickupX(i) == b.getPickupX(j) && a.getPickupY(i) == b.getPickupY(j)
+                && a.getDropoffX(i) == b.getDropoffX(j) && a.getDropoffY(i) == b.getDropoffY(j);
+    }
+
+    public LoadSet getLoads() {
+        return loads;
+    }
+
+    public Solution getSolution() {
+        return solution;
+    }
+
+    /**
+     * Inserts the load at the position of any route where it adds the least drive time without going over the max,
+     * or in a new route if there isn't one.  Either way, the route it ends up in has to be repaired.
+     */
+    private static void insertCheapest(LoadSet loads, List<Route> routes, Set<Route> affected, int load) {
+        Route bestRoute = null;
+        int bestPosition = -1;
+        double bestDelta = Double.MAX_VALUE;
+        for (Route route : routes) {
+            for (int position = 0; position <= route.getSize(); position++) {
+                double delta = route.insertionDelta(load, position);
+                if (delta < bestDelta && route.isFeasible(delta)) {
+                    bestRoute = route;
+                    bestPosition = position;
+                    bestDelta = delta;
+                }
+            }
+        }
+
+        if (bestRoute == null) {
+            bestRoute = new Route(loads, new int[]{load}, 1);
+            routes.add(bestRoute);
+        } else {
+            bestRoute.insert(load, bestPosition);
+        }
+        affected.add(bestRoute);
+    }
+}
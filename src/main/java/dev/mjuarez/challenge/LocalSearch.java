@@ -0,0 +1,260 @@
+package dev.mjuarez.challenge;
+
+import dev.mjuarez.util.CalculationsUtil;
+import dev.mjuarez.util.Route;
+import dev.mjuarez.util.Solution;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Improves an already built Solution by moving loads around, until none of the moves below make it any cheaper:
+ * - Route elimination: move every load of a route into the other routes, saving a driver.
+ * - Relocate: move a single load from one route into another one.
+ * - Swap: exchange two loads between two routes.
+ * - 2-opt: reverse the order of a sequence of loads inside a route.
+ * Every move is evaluated in constant time, using the neighbors of the loads involved, plus cached prefix sums of the
+ * drive times in between loads for 2-opt.  No move is ever allowed to go over the max drive time of a route.
+ * It can also improve just a few routes of a larger solution, with the drivers and minutes of every other route as a
+ * fixed base: since the cost is a product of both, a move that pays off on a few routes alone can still make the whole
+ * solution more expensive.
+ * This is not thread-safe, every worker should have its own instance.
+ */
+public class LocalSearch {
+    private static final double EPSILON = 1e-9;
+
+    // Drivers and minutes of the routes that are not being improved, which still count towards the cost of every move
+    private final int fixedDrivers;
+    private final double fixedMinutes;
+
+    private List<Route> routes;
+    private double totalMinutes;
+
+    public LocalSearch() {
+        this(0, 0);
+    }
+
+    /**
+     * @param fixedDrivers number of routes of the whole solution that are left out of the search
+     * @param fixedMinutes total drive time of those routes
+     */
+    public LocalSearch(int fixedDrivers, double fixedMinutes) {
+        this.fixedDrivers = fixedDrivers;
+        this.fixedMinutes = fixedMinutes;
+    }
+
+    /**
+     * Returns an improved copy of the solution, or the same solution if nothing could be improved before termination
+     */
+    public Solution improve(Solution solution, Termination termination) {
+        routes = new ArrayList<>();
+        for (Route route : solution.getRoutes()) {
+            routes.add(new Route(route));
+        }
+        updateTotalMinutes();
+        double initialCost = totalCost(routes.size(), totalMinutes);
+
+        boolean improved = true;
+        while (improved && !termination.isReached()) {
+            improved = eliminateRoutes(termination);
+            improved |= relocateLoads(termination);
+            improved |= swapLoads(termination);
+            improved |= reverseSegments();
+        }
+
+        if (totalCost(routes.size(), totalMinutes) >= initialCost) {
+            return solution;
+        }
+        return Solution.copyOf(routes);
+    }
+
+    /**
+     * Tries to empty out the routes with the fewest loads first, by inserting each of their loads wherever it's cheapest
+     */
+    private boolean eliminateRoutes(Termination termination) {
+        boolean improved = false;
+        List<Route> candidates = new ArrayList<>(routes);
+        candidates.sort(Comparator.comparingInt(Route::getSize).thenComparingDouble(Route::getCost));
+
+        for (Route eliminated : candidates) {
+            if (termination.isReached() || routes.size() < 2) {
+                break;
+            }
+            if (!routes.contains(eliminated)) {
+                // Already changed by a previous elimination, this will be looked at again on the next pass
+                continue;
+            }
+
+            // Work on copies, so that nothing changes unless every load finds a place
+            Map<Route, Route> copies = new HashMap<>();
+            double newMinutes = totalMinutes - eliminated.getCost();
+            boolean allInserted = true;
+            for (int i = 0; i < eliminated.getSize() && allInserted; i++) {
+                int load = eliminated.getLoad(i);
+                Route bestRoute = null;
+                int bestPosition = -1;
+                double bestDelta = Double.MAX_VALUE;
+                for (Route original : routes) {
+                    if (original == eliminated) {
+                        continue;
+                    }
+                    Route route = copies.getOrDefault(original, original);
+                    for (int position = 0; position <= route.getSize(); position++) {
+                        double delta = route.insertionDelta(load, position);
+                        if (delta < bestDelta && route.isFeasible(delta)) {
+                            bestRoute = original;
+                            bestPosition = position;
+                            bestDelta = delta;
+                        }
+                    }
+                }
+                if (bestRoute == null) {
+                    allInserted = false;
+                } else {
+                    Route copy = copies.computeIfAbsent(bestRoute, Route::new);
+                    copy.insert(load, bestPosition);
+                    newMinutes += bestDelta;
+                }
+            }
+
+            if (allInserted && totalCost(routes.size() - 1, newMinutes) < totalCost(routes.size(), totalMinutes) - EPSILON) {
+                routes.remove(eliminated);
+                routes.replaceAll(route -> copies.getOrDefault(route, route));
+                updateTotalMinutes();
+                improved = true;
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * Moves single loads into whichever other route takes them for the lowest cost, if that's cheaper overall
+     */
+    private boolean relocateLoads(Termination termination) {
+        boolean improved = false;
+        for (int a = 0; a < routes.size(); a++) {
+            Route from = routes.get(a);
+            for (int i = 0; i < from.getSize(); i++) {
+                if (termination.isReached()) {
+                    return improved;
+                }
+                int load = from.getLoad(i);
+                double removalDelta = from.removalDelta(i);
+                boolean emptiesRoute = from.getSize() == 1;
+                int drivers = emptiesRoute ? routes.size() - 1 : routes.size();
+                double bestCost = totalCost(routes.size(), totalMinutes) - EPSILON;
+
+                Route bestRoute = null;
+                int bestPosition = -1;
+                for (Route to : routes) {
+                    if (to == from) {
+                        continue;
+                    }
+                    for (int position = 0; position <= to.getSize(); position++) {
+                        double insertionDelta = to.insertionDelta(load, position);
+                        if (!to.isFeasible(insertionDelta)) {
+                            continue;
+                        }
+                        double cost = totalCost(drivers, totalMinutes + removalDelta + insertionDelta);
+                        if (cost < bestCost) {
+                            bestCost = cost;
+                            bestRoute = to;
+                            bestPosition = position;
+                        }
+                    }
+                }
+
+                if (bestRoute != null) {
+                    from.remove(i);
+                    bestRoute.insert(load, bestPosition);
+                    if (emptiesRoute) {
+                        routes.remove(a);
+                        a--;
+                    }
+                    updateTotalMinutes();
+                    improved = true;
+                    // Whatever is now at this position hasn't been looked at yet
+                    i--;
+                    if (emptiesRoute) {
+                        break;
+                    }
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * Exchanges pairs of loads in between two different routes, whenever that reduces the total drive time
+     */
+    private boolean swapLoads(Termination termination) {
+        boolean improved = false;
+        for (int a = 0; a < routes.size(); a++) {
+            Route first = routes.get(a);
+            for (int b = a + 1; b < routes.size(); b++) {
+                if (termination.isReached()) {
+                    return improved;
+                }
+                Route second = routes.get(b);
+                for (int i = 0; i < first.getSize(); i++) {
+                    for (int j = 0; j < second.getSize(); j++) {
+                        double firstDelta = first.replacementDelta(i, second.getLoad(j));
+                        double secondDelta = second.replacementDelta(j, first.getLoad(i));
+                        if (firstDelta + secondDelta < -EPSILON && first.isFeasible(firstDelta) && second.isFeasible(secondDelta)) {
+                            int load = first.getLoad(i);
+                            first.replace(i, second.getLoad(j));
+                            second.replace(j, load);
+                            improved = true;
+                        }
+                    }
+                }
+            }
+        }
+        if (improved) {
+            updateTotalMinutes();
+        }
+        return improved;
+    }
+
+    /**
+     * Intra-route 2-opt, reversing the order of loads in between positions i and j of the same route
+     */
+    private boolean reverseSegments() {
+        boolean improved = false;
+        for (Route route : routes) {
+            boolean routeImproved = true;
+            while (routeImproved) {
+                routeImproved = false;
+                for (int i = 0; i < route.getSize() - 1 && !routeImproved; i++) {
+                    for (int j = i + 1; j < route.getSize(); j++) {
+                        double delta = route.reversalDelta(i, j);
+                        if (delta < -EPSILON && route.isFeasible(delta)) {
+                            route.reverse(i, j);
+                            routeImproved = true;
+                            improved = true;
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        if (improved) {
+            updateTotalMinutes();
+        }
+        return improved;
+    }
+
+    private void updateTotalMinutes() {
+        totalMinutes = 0;
+        for (Route route : routes) {
+            totalMinutes += route.getCost();
+        }
+    }
+
+    private double totalCost(int drivers, double minutes) {
+        return CalculationsUtil.calculateTotalCost(fixedDrivers + drivers, fixedMinutes + minutes);
+    }
+}
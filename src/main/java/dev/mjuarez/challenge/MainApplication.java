@@ -1,91 +1,94 @@
 package dev.mjuarez.challenge;
 
-import dev.mjuarez.util.CalculationsUtil;
-import dev.mjuarez.util.CartesianPoint;
 import dev.mjuarez.util.Solution;
-import dev.mjuarez.util.Load;
+import dev.mjuarez.util.LoadFileParser;
+import dev.mjuarez.util.LoadSet;
 import dev.mjuarez.util.Route;
+import dev.mjuarez.util.Snapshot;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.StringJoiner;
 
 public class MainApplication {
     final public static long MAX_ALLOWED_RUNTIME_MS = 25_000;
     final public static int DEPOT_ID = 0;
 
-    private static List<Solution> solutions = new ArrayList<>();
+    // Most the warm start can take out of the time budget, to repair the routes that changed since the snapshot
+    private static final double WARM_START_SHARE = 0.1;
 
     public static void main(String[] args) throws IOException {
-        Load[] loads = getLoadsFromFile(args);
-
-        long startTime = System.currentTimeMillis();
-        long iterations = 0;
-
-        // First, run a baseline without simulated annealing or priority loads
-        AdjacencyMatrixGraph matrixGraph = createAdjacencyMatrixGraph(loads, false, false);
-        Solution solution = matrixGraph.findSolution();
-        solutions.add(solution);
-
-        // Now, go ahead and run as many combinations as possible, using simulated annealing, with 50% of priority loads
-        while (true) {
-            matrixGraph = createAdjacencyMatrixGraph(loads, true, iterations++ % 2 == 0);
-            solution = matrixGraph.findSolution();
-            solutions.add(solution);
+        SolverOptions options = SolverOptions.fromArgs(args);
+        if (options.getServerPort() > 0) {
+            // Keep the JVM warm in between solves, problems come in through HTTP instead of the command line
+            SolverServer server = new SolverServer(options);
+            server.start();
+            System.out.println(String.format("Listening on port [%d]", server.getPort()));
+            return;
+        }
 
-            if (System.currentTimeMillis() - startTime > MAX_ALLOWED_RUNTIME_MS) {
-                // We will be penalized if the program takes longer than 25 seconds, so stop here
-                break;
+        if (options.getBatchPath() != null) {
+            // Every problem of the batch in this same JVM, sharing the worker threads, and a file of output for each
+            BatchSolver batch = new BatchSolver(options);
+            int failed = batch.solve(BatchSolver.listProblems(Paths.get(options.getBatchPath())), options.getBatchBudgetMs());
+            if (failed > 0) {
+                System.exit(1);
             }
+            return;
         }
-        printFinalOutput();
-    }
-
-    private static AdjacencyMatrixGraph createAdjacencyMatrixGraph(Load[] loads, boolean simulatedAnnealing, boolean priorityLoads) {
-        // Number of total nodes will be loads * 2, plus 1 for Origin
-        int totalNodes = loads.length * 2 + 1;
-
-        AdjacencyMatrixGraph matrixGraph = new AdjacencyMatrixGraph(totalNodes, simulatedAnnealing);
-        List<Integer> initialNodes = new ArrayList<>();
-        List<Integer> terminalNodes = new ArrayList<>();
-
-        // First, add the edges for each of the loads
-        for (Load load : loads) {
-            // This needs to return 1, 2 for first load, 3, 4 for second load, etc.
-            int secondId = load.getId() * 2;
-            int firstId = secondId - 1;
 
-            matrixGraph.addEdge(DEPOT_ID, firstId, CalculationsUtil.calculateTimeInMinutes(CartesianPoint.ORIGIN, load.p1()));
-            matrixGraph.addEdge(firstId, secondId, CalculationsUtil.calculateTimeInMinutes(load.p1(), load.p2()));
-            matrixGraph.addEdge(secondId, DEPOT_ID, CalculationsUtil.calculateTimeInMinutes(load.p2(), CartesianPoint.ORIGIN));
+        long start = System.currentTimeMillis();
+        LoadSet loads = getLoadsFromFile(options.getProblemPath());
 
-            initialNodes.add(firstId);
-            terminalNodes.add(secondId);
+        Solution warmStart = null;
+        if (options.getWarmStartPath() != null) {
+            // The previous routes, updated to the current loads, with a small share of the time to repair what changed
+            Path warmStartPath = Paths.get(options.getWarmStartPath());
+            Snapshot previous = Snapshot.read(warmStartPath);
+            if (previous.getSolution() == null) {
+                throw new IllegalArgumentException(String.format("Snapshot has no solution [%s]", warmStartPath));
+            }
+            warmStart = IncrementalSolver.warmStart(previous.getLoads(), previous.getSolution(), loads,
+                    new Termination((long) (MAX_ALLOWED_RUNTIME_MS * WARM_START_SHARE)));
         }
 
-        // Now, for every terminal node (even ones), add an edge to every other initial node that is not it's own counterpart
-        for (int terminalNode : terminalNodes) {
-            for (int initialNode : initialNodes) {
-                if (initialNode != terminalNode - 1) {
-                    // Loads are zero-based, always substract 1 from the index
-                    Load initialLoad = loads[(int) ((initialNode + 1) / 2) - 1];
-                    Load terminalLoad = loads[(int) (terminalNode / 2) - 1];
-                    matrixGraph.addEdge(terminalNode, initialNode, CalculationsUtil.calculateTimeInMinutes(terminalLoad.p2(), initialLoad.p1()));
-                }
-            }
+        Solution solution = solve(loads, options, MAX_ALLOWED_RUNTIME_MS - (System.currentTimeMillis() - start), warmStart);
+        printFinalOutput(solution, loads);
+        if (options.getSnapshotPath() != null) {
+            new Snapshot(loads, solution).write(Paths.get(options.getSnapshotPath()));
         }
 
-        // Optionally, add the loads so they're available for optimization inside the matrixGraph
-        if (priorityLoads) {
-            matrixGraph.addLoads(loads);
+        // Stdout only has the routes, this is what it takes to run the same search again with --seed.  Partitioned solves
+        // don't come from a single restart, every partition has its own seed split from this one
+        if (solution != null && solution.getRestart() >= 0) {
+            System.err.println(String.format("Seed [%d], found by restart [%d]", solution.getSeed(), solution.getRestart()));
+        } else if (solution != null) {
+            System.err.println(String.format("Seed [%d]", solution.getSeed()));
         }
+    }
+
+    /**
+     * Runs as many restarts as possible on every available core and keeps only the cheapest one, either over the whole
+     * problem, or over every partition if they're enabled
+     */
+    static Solution solve(LoadSet loads, SolverOptions options, long maxRuntimeMs) {
+        return solve(loads, options, maxRuntimeMs, null);
+    }
 
-        return matrixGraph;
+    /**
+     * Same as solve, starting every worker from the given solution if it isn't null.  Partitions are solved from
+     * scratch, but the warm start is still returned if it's cheaper than what they come up with.
+     */
+    static Solution solve(LoadSet loads, SolverOptions options, long maxRuntimeMs, Solution warmStart) {
+        if (options.getPartitions() > 1) {
+            Solution solution = new PartitionedSolver(loads, options).solve(maxRuntimeMs);
+            return warmStart != null && (solution == null || warmStart.getTotalCost() < solution.getTotalCost()) ? warmStart : solution;
+        }
+        SolverEngine engine = new SolverEngine(loads, options);
+        engine.setInitialSolution(warmStart);
+        return engine.solve(maxRuntimeMs);
     }
 
     /**
@@ -96,41 +99,28 @@ public class MainApplication {
      * The above means there's 3 drivers, first one does load 1, second one does load 4 followed by 2,
      * and 3rd one only does load 3.
      */
-    private static void printFinalOutput() {
-        double minimumCost = Double.MAX_VALUE;
-        Solution minimumSolution = null;
-
-        for (Solution solution : solutions) {
-            if (solution.getTotalCost() < minimumCost) {
-                minimumCost = solution.getTotalCost();
-                minimumSolution = solution;
-            }
-        }
+    private static void printFinalOutput(Solution minimumSolution, LoadSet loads) {
+        System.out.print(formatSolution(minimumSolution, loads));
+    }
 
-        // Now that we know which one has the lowest cost, go ahead and display that
-        if (minimumSolution != null) {
-            for (Route route : minimumSolution.getRoutes()) {
-                List<Integer> finalRoute = new ArrayList<>();
-                for (Integer node : route.getPath()) {
-                    if (node == 0) {
-                        continue;
-                    }
-                    int load = getLoadIdFromNode(node);
-                    if (!finalRoute.contains(load)) {
-                        finalRoute.add(load);
-                    }
+    /**
+     * Routes in the same format printFinalOutput uses, one line per driver
+     */
+    public static String formatSolution(Solution solution, LoadSet loads) {
+        StringBuilder output = new StringBuilder();
+        if (solution != null) {
+            for (Route route : solution.getRoutes()) {
+                StringJoiner finalRoute = new StringJoiner(",", "[", "]");
+                for (int k = 0; k < route.getSize(); k++) {
+                    finalRoute.add(Integer.toString(loads.getId(route.getLoad(k))));
                 }
-                System.out.println(finalRoute.toString().replaceAll(" ", ""));
+                output.append(finalRoute).append('\n');
             }
         }
+        return output.toString();
     }
 
-    public static int getLoadIdFromNode(int node) {
-        return ((int) ((node + 1) / 2));
-    }
-
-    private static Load[] getLoadsFromFile(String[] args) throws IOException {
-        String path = args[0];
+    private static LoadSet getLoadsFromFile(String path) throws IOException {
         Path loadFile = Paths.get(path);
 
         // Check that the file exists, is readable, and is not a directory
@@ -140,19 +130,12 @@ public class MainApplication {
             System.exit(1);
         }
 
-        // Going to assume these files are relatively small, so we can load the whole thing at once.
-        List<String> lines = Files.readAllLines(loadFile, StandardCharsets.UTF_8);
-
-        Load[] loads = new Load[lines.size() - 1];
-
-        int counter = 0;
-        for (String line : lines) {
-            // Skip lines that are not actual data.
-            if (line.startsWith("loadNumber") || line.isBlank()) {
-                continue;
-            }
-            loads[counter++] = CalculationsUtil.parseLoadFromInputLine(line);
+        // A snapshot already has the loads in binary, e.g. one written by a previous solve with --snapshot
+        if (Snapshot.isSnapshot(loadFile)) {
+            return Snapshot.read(loadFile).getLoads();
         }
-        return loads;
+
+        // Decode the file straight into primitive arrays, instead of going through a String per line
+        return LoadFileParser.parse(loadFile);
     }
 }
@@ -0,0 +1,200 @@
+package dev.mjuarez.challenge;
+
+import dev.mjuarez.util.LoadPartitioner;
+import dev.mjuarez.util.LoadSet;
+import dev.mjuarez.util.Route;
+import dev.mjuarez.util.Solution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Solves large problems by splitting the loads into geographic partitions (see LoadPartitioner), and solving each one
+ * on its own with a single threaded SolverEngine, as many of them at the same time as there are worker threads.
+ * Every partition only needs a distance matrix of its own loads, so memory goes down with the square of the number of
+ * partitions.  The routes of every partition are then put together, and LocalSearch repairs the boundaries, moving
+ * loads in between every pair of neighboring partitions, with drive times straight from the coordinates.  Every pair
+ * is repaired with the routes of every other partition as a fixed base, so moves are scored against the whole cost.
+ */
+public class PartitionedSolver {
+    // Share of the time budget left to repair the boundaries, once every partition is solved
+    private static final double REPAIR_SHARE = 0.2;
+
+    private final LoadSet loads;
+    private final SolverOptions options;
+
+    public PartitionedSolver(LoadSet loads, SolverOptions options) {
+        this.loads = loads;
+        this.options = options;
+    }
+
+    public Solution solve(long maxRuntimeMs) {
+        // Checked up front, instead of failing in one of the partitions
+        loads.checkReachable();
+        long deadline = System.currentTimeMillis() + maxRuntimeMs;
+        long seed = options.getSeed() != null ? options.getSeed() : new SplittableRandom().nextLong();
+        int[][] partitions = switch (options.getPartitioning()) {
+            case SWEEP -> LoadPartitioner.sweep(loads, options.getPartitions());
+            case K_MEANS -> LoadPartitioner.kMeans(loads, options.getPartitions(), seed);
+        };
+
+        // Partitions are solved in waves of as many as there are threads, and every wave gets the same share of time
+        int parallelism = Math.max(1, Math.min(options.getParallelism(), partitions.length));
+        int waves = (partitions.length + parallelism - 1) / parallelism;
+        long solveMs = (long) ((deadline - System.currentTimeMillis()) * (1 - REPAIR_SHARE));
+        long partitionMs = Math.max(1, solveMs / waves);
+
+        // Every partition gets its own seed, split from the main one in order, so the whole solve can be repeated
+        SplittableRandom seeds = new SplittableRandom(seed);
+        List<Callable<List<Route>>> tasks = new ArrayList<>(partitions.length);
+        for (int[] partition : partitions) {
+            SolverOptions partitionOptions = options.forPartition(seeds.nextLong());
+            tasks.add(() -> solvePartition(partition, partitionOptions, partitionMs));
+        }
+
+        int[] partitionOf = new int[loads.getNumOfLoads()];
+        for (int p = 0; p < partitions.length; p++) {
+            for (int load : partitions[p]) {
+                partitionOf[load] = p;
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<Route> routes = new ArrayList<>();
+            for (List<Route> partitionRoutes : runAll(executor, tasks)) {
+                routes.addAll(partitionRoutes);
+            }
+            // Every wave gets an equal share of what's left, so the first one can't use up the time of the others
+            List<List<int[]>> boundaryWaves = boundaryWaves(partitions.length);
+            for (int w = 0; w < boundaryWaves.size(); w++) {
+                long waveMs = (deadline - System.currentTimeMillis()) / (boundaryWaves.size() - w);
+                Termination termination = new Termination(Math.max(1, waveMs));
+                routes = repairBoundaries(executor, routes, partitionOf, partitions.length, boundaryWaves.get(w), termination);
+            }
+            return new Solution(routes).withOrigin(seed, -1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<Route> solvePartition(int[] partition, SolverOptions partitionOptions, long partitionMs) {
+        LoadSet partitionLoads = new LoadSet(partition.length);
+        for (int load : partition) {
+            partitionLoads.add(loads, load);
+        }
+        SolverEngine engine = new SolverEngine(partitionLoads, partitionOptions);
+        Solution solution = engine.solve(partitionMs);
+
+        // partition[k] is the position in the whole problem of the load at position k in the partition
+        List<Route> routes = new ArrayList<>(partition.length);
+        if (solution == null) {
+            // Not even a single restart finished in time, a driver per load is always within the max drive time
+            for (int load : partition) {
+                routes.add(new Route(loads, new int[]{load}, 1));
+            }
+            return routes;
+        }
+        for (Route route : solution.getRoutes()) {
+            routes.add(route.renumber(loads, partition));
+        }
+        return routes;
+    }
+
+    /**
+     * Partitions are neighbors of the next one, and the last one of the first one, since they go around the depot.
+     * Pairs are split in waves where no partition is in more than one pair, so every pair in a wave can be repaired
+     * at the same time.
+     */
+    private static List<List<int[]>> boundaryWaves(int numOfPartitions) {
+        List<List<int[]>> waves = new ArrayList<>();
+        if (numOfPartitions < 2) {
+            return waves;
+        }
+        waves.add(new ArrayList<>());
+        waves.add(new ArrayList<>());
+        int numOfPairs = numOfPartitions == 2 ? 1 : numOfPartitions;
+        for (int p = 0; p < numOfPairs; p++) {
+            int[] pair = {p, (p + 1) % numOfPartitions};
+            if (numOfPartitions % 2 == 1 && p == numOfPartitions - 1) {
+                // With an odd number of partitions, the pair that closes the circle overlaps with both waves
+                waves.add(List.of(pair));
+            } else {
+                waves.get(p % 2).add(pair);
+            }
+        }
+        waves.removeIf(List::isEmpty);
+        return waves;
+    }
+
+    /**
+     * Runs LocalSearch on the routes of every pair of partitions in the wave.  Routes belong to the partition of their
+     * first load, which may change as loads move across the boundary.
+     */
+    private List<Route> repairBoundaries(ExecutorService executor, List<Route> routes, int[] partitionOf,
+                                         int numOfPartitions, List<int[]> wave, Termination termination) {
+        List<List<Route>> byPartition = new ArrayList<>(numOfPartitions);
+        for (int p = 0; p < numOfPartitions; p++) {
+            byPartition.add(new ArrayList<>());
+        }
+        for (Route route : routes) {
+            byPartition.get(partitionOf[route.getLoad(0)]).add(route);
+        }
+
+        double totalMinutes = 0;
+        for (Route route : routes) {
+            totalMinutes += route.getCost();
+        }
+
+        List<Route> result = new ArrayList<>(routes.size());
+        boolean[] paired = new boolean[numOfPartitions];
+        List<Callable<List<Route>>> tasks = new ArrayList<>(wave.size());
+        for (int[] pair : wave) {
+            List<Route> pairRoutes = new ArrayList<>(byPartition.get(pair[0]));
+            pairRoutes.addAll(byPartition.get(pair[1]));
+            paired[pair[0]] = true;
+            paired[pair[1]] = true;
+            double pairMinutes = 0;
+            for (Route route : pairRoutes) {
+                pairMinutes += route.getCost();
+            }
+            LocalSearch localSearch = new LocalSearch(routes.size() - pairRoutes.size(), totalMinutes - pairMinutes);
+            tasks.add(() -> localSearch.improve(new Solution(pairRoutes), termination).getRoutes());
+        }
+        for (int p = 0; p < numOfPartitions; p++) {
+            if (!paired[p]) {
+                result.addAll(byPartition.get(p));
+            }
+        }
+        for (List<Route> repaired : runAll(executor, tasks)) {
+            result.addAll(repaired);
+        }
+
+        // Every pair only improves the cost as if the other pairs didn't change, which may not hold once they all have
+        if (new Solution(result).getTotalCost() > new Solution(routes).getTotalCost()) {
+            return routes;
+        }
+        return result;
+    }
+
+    private static <T> List<T> runAll(ExecutorService executor, List<Callable<T>> tasks) {
+        List<T> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<T> future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Partitioned solve interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Partition solve failed", e.getCause());
+        }
+        return results;
+    }
+}
@@ -0,0 +1,189 @@
+package dev.mjuarez.challenge;
+
+import dev.mjuarez.util.CalculationsUtil;
+import dev.mjuarez.util.DriveTimes;
+import dev.mjuarez.util.Route;
+import dev.mjuarez.util.Solution;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Clarke-Wright savings construction.  It starts with one route per load, and keeps appending the route that starts
+ * with load b at the end of the route that ends with load a, in order of the savings of doing so:
+ * saving(a, b) = dropoffToDepot(a) + depotToPickup(b) - dropoffToPickup(a, b)
+ * as long as the merged route stays within the max drive time.  Since every merge saves a driver, merges with negative
+ * savings are also taken, after all the positive ones.
+ * The priority queue holds one entry per route tail, pointing to its best remaining candidate.  The candidates of each
+ * load are only sorted the first time that load is taken out of the queue, and are dropped as soon as it stops being a
+ * tail, so memory stays well below one entry per pair of loads in practice.  Worst case is O(n^2 log n).
+ */
+public class SavingsConstructor {
+    private static final int NONE = -1;
+
+    private final DriveTimes distanceModel;
+    private final int numOfLoads;
+
+    // Linked list of loads for every route, and the route every load belongs to (identified by its first load)
+    private final int[] next;
+    private final int[] previous;
+    private final int[] routeOf;
+    private final double[] routeCost;
+
+    // Candidates of every load, sorted by descending savings, and the position of the next one to look at
+    private final int[][] candidates;
+    private final int[] cursor;
+
+    // Binary max-heap of loads, keyed by the savings of their current candidate
+    private final int[] heap;
+    private final double[] heapSavings;
+    private int heapSize;
+
+    public SavingsConstructor(DriveTimes distanceModel) {
+        this.distanceModel = distanceModel;
+        this.numOfLoads = distanceModel.getNumOfLoads();
+        this.next = new int[numOfLoads];
+        this.previous = new int[numOfLoads];
+        this.routeOf = new int[numOfLoads];
+        this.routeCost = new double[numOfLoads];
+        this.candidates = new int[numOfLoads][];
+        this.cursor = new int[numOfLoads];
+        this.heap = new int[numOfLoads];
+        this.heapSavings = new double[numOfLoads];
+    }
+
+    public Solution build() {
+        // One route per load to begin with
+        for (int load = 0; load < numOfLoads; load++) {
+            next[load] = NONE;
+            previous[load] = NONE;
+            routeOf[load] = load;
+            routeCost[load] = distanceModel.depotToPickup(load) + distanceModel.pickupToDropoff(load) + distanceModel.dropoffToDepot(load);
+        }
+
+        // Seed the queue with the best candidate of every load, the full list is only sorted once it's needed
+        for (int load = 0; load < numOfLoads; load++) {
+            double bestSavings = -Double.MAX_VALUE;
+            for (int candidate = 0; candidate < numOfLoads; candidate++) {
+                if (candidate != load) {
+                    bestSavings = Math.max(bestSavings, savings(load, candidate));
+                }
+            }
+            if (numOfLoads > 1) {
+                push(load, bestSavings);
+            }
+        }
+
+        while (heapSize > 0) {
+            int tail = pop();
+            if (candidates[tail] == null) {
+                candidates[tail] = sortCandidates(tail);
+            }
+            int head = candidates[tail][cursor[tail]++];
+            if (isMergeable(tail, head)) {
+                merge(tail, head);
+            }
+
+            // A load that is still the end of a route goes back in the queue, with its next best candidate
+            if (next[tail] == NONE && cursor[tail] < candidates[tail].length) {
+                push(tail, savings(tail, candidates[tail][cursor[tail]]));
+            } else {
+                candidates[tail] = null;
+            }
+        }
+        return toSolution();
+    }
+
+    private double savings(int tail, int head) {
+        return distanceModel.dropoffToDepot(tail) + distanceModel.depotToPickup(head) - distanceModel.dropoffToPickup(tail, head);
+    }
+
+    private boolean isMergeable(int tail, int head) {
+        // Routes only ever get longer, so a pair that can't be merged now can never be merged later either
+        return next[tail] == NONE && previous[head] == NONE && routeOf[tail] != routeOf[head]
+                && routeCost[routeOf[tail]] + routeCost[routeOf[head]] - savings(tail, head) < CalculationsUtil.MAX_DRIVE_TIME_MINUTES;
+    }
+
+    private void merge(int tail, int head) {
+        int route = routeOf[tail];
+        routeCost[route] += routeCost[routeOf[head]] - savings(tail, head);
+        next[tail] = head;
+        previous[head] = tail;
+        for (int load = head; load != NONE; load = next[load]) {
+            routeOf[load] = route;
+        }
+    }
+
+    /**
+     * Every other load, sorted by descending savings.  Savings are packed as floats together with the load into a long,
+     * so that they can be sorted as primitives.
+     */
+    private int[] sortCandidates(int tail) {
+        long[] packed = new long[numOfLoads - 1];
+        int count = 0;
+        for (int head = 0; head < numOfLoads; head++) {
+            if (head != tail) {
+                // Turn the float bits into an int that sorts in the same order, and flip it so larger savings go first
+                int bits = Float.floatToIntBits((float) savings(tail, head));
+                int ascending = bits ^ ((bits >> 31) & 0x7FFFFFFF);
+                packed[count++] = ((long) ~ascending << 32) | head;
+            }
+        }
+        Arrays.sort(packed);
+        int[] sorted = new int[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = (int) packed[i];
+        }
+        return sorted;
+    }
+
+    private void push(int load, double savings) {
+        int position = heapSize++;
+        while (position > 0 && heapSavings[(position - 1) / 2] < savings) {
+            heap[position] = heap[(position - 1) / 2];
+            heapSavings[position] = heapSavings[(position - 1) / 2];
+            position = (position - 1) / 2;
+        }
+        heap[position] = load;
+        heapSavings[position] = savings;
+    }
+
+    private int pop() {
+        int top = heap[0];
+        int load = heap[--heapSize];
+        double savings = heapSavings[heapSize];
+        int position = 0;
+        while (position * 2 + 1 < heapSize) {
+            int child = position * 2 + 1;
+            if (child + 1 < heapSize && heapSavings[child + 1] > heapSavings[child]) {
+                child++;
+            }
+            if (heapSavings[child] <= savings) {
+                break;
+            }
+            heap[position] = heap[child];
+            heapSavings[position] = heapSavings[child];
+            position = child;
+        }
+        heap[position] = load;
+        heapSavings[position] = savings;
+        return top;
+    }
+
+    private Solution toSolution() {
+        List<Route> routes = new ArrayList<>();
+        int[] sequence = new int[numOfLoads];
+        for (int first = 0; first < numOfLoads; first++) {
+            if (previous[first] != NONE) {
+                continue;
+            }
+            int size = 0;
+            for (int load = first; load != NONE; load = next[load]) {
+                sequence[size++] = load;
+            }
+            routes.add(new Route(distanceModel, sequence, size));
+        }
+        return new Solution(routes);
+    }
+}
@@ -0,0 +1,247 @@
+package dev.mjuarez.challenge;
+
+import dev.mjuarez.util.CalculationsUtil;
+import dev.mjuarez.util.Route;
+import dev.mjuarez.util.Solution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
+
+/**
+ * Simulated annealing over complete solutions.  Every step makes a random move (relocate, swap or 2-opt, same as the
+ * local search), and accepts it with the Metropolis criterion on the total cost: always if it's cheaper, and with a
+ * probability of exp(-relative cost increase / temperature) if it's not.
+ * The temperature comes from the cooling schedule, based on how much of the time budget has been used so far (up to the
+ * expected end of the solve, see Termination.getExpectedEnd), scaled by the average cost increase of a sample of random
+ * moves taken before starting.
+ * This is not thread-safe, every worker should have its own instance.
+ */
+public class SimulatedAnnealing {
+    private static final double EPSILON = 1e-9;
+
+    // How many moves to make in between checking the clock and updating the temperature
+    private static final int MOVES_PER_CLOCK_CHECK = 256;
+
+    // How many random moves to sample, in order to calibrate the temperature to the size of the problem
+    private static final int CALIBRATION_MOVES = 1000;
+
+    private final CoolingSchedule coolingSchedule;
+    private final RandomGenerator random;
+
+    private List<Route> routes;
+    private double totalMinutes;
+    private double currentCost;
+    private double temperature;
+    private double temperatureScale;
+
+    // Moves tried and accepted by the last call to anneal, not counting the calibration
+    private long moves;
+    private long acceptedMoves;
+
+    // While calibrating, moves are only evaluated, and the cost increase of the ones that make things worse is recorded
+    private boolean calibrating;
+    private double calibrationIncrease;
+    private int calibrationCount;
+
+    public SimulatedAnnealing(CoolingSchedule coolingSchedule, RandomGenerator random) {
+        this.coolingSchedule = coolingSchedule;
+        this.random = random;
+    }
+
+    /**
+     * Anneals until termination, starting from the given solution, and returns the best solution it went through.
+     * Every new best solution is also passed to onNewBest as soon as it's found.
+     */
+    public Solution anneal(Solution initial, Termination termination, Consumer<Solution> onNewBest) {
+        routes = new ArrayList<>();
+        for (Route route : initial.getRoutes()) {
+            routes.add(new Route(route));
+        }
+        totalMinutes = routes.stream().mapToDouble(Route::getCost).sum();
+        currentCost = CalculationsUtil.calculateTotalCost(routes.size(), totalMinutes);
+        calibrate();
+
+        Solution best = initial;
+        double bestCost = initial.getTotalCost();
+        long start = System.currentTimeMillis();
+
+        acceptedMoves = 0;
+        for (moves = 0; ; moves++) {
+            if (moves % MOVES_PER_CLOCK_CHECK == 0) {
+                if (termination.isReached()) {
+                    break;
+                }
+                // Progress towards the expected end rather than the deadline, so a stall doesn't stop it while it's hot
+                long now = System.currentTimeMillis();
+                double budget = Math.max(1, termination.getExpectedEnd() - start);
+                temperature = coolingSchedule.temperature(Math.min(1, (now - start) / budget)) * temperatureScale;
+            }
+
+            boolean accepted = randomMove();
+            if (accepted) {
+                acceptedMoves++;
+            }
+
+            boolean newBest = accepted && currentCost < bestCost - EPSILON;
+            if (newBest) {
+                best = Solution.copyOf(routes);
+                bestCost = best.getTotalCost();
+                onNewBest.accept(best);
+            }
+            coolingSchedule.onMove(accepted, newBest);
+        }
+        return best;
+    }
+
+    public long getMoves() {
+        return moves;
+    }
+
+    public long getAcceptedMoves() {
+        return acceptedMoves;
+    }
+
+    private boolean randomMove() {
+        return switch (random.nextInt(3)) {
+            case 0 -> relocate();
+            case 1 -> swap();
+            default -> reverse();
+        };
+    }
+
+    private void calibrate() {
+        calibrating = true;
+        calibrationIncrease = 0;
+        calibrationCount = 0;
+        for (int i = 0; i < CALIBRATION_MOVES; i++) {
+            randomMove();
+        }
+        calibrating = false;
+        temperatureScale = calibrationCount > 0 ? calibrationIncrease / calibrationCount : EPSILON;
+    }
+
+    /**
+     * Moves a random load into a random position of another random route
+     */
+    private boolean relocate() {
+        if (routes.size() < 2) {
+            return false;
+        }
+        int a = random.nextInt(routes.size());
+        int b = random.nextInt(routes.size() - 1);
+        b = b >= a ? b + 1 : b;
+        Route from = routes.get(a);
+        Route to = routes.get(b);
+
+        int i = random.nextInt(from.getSize());
+        int position = random.nextInt(to.getSize() + 1);
+        int load = from.getLoad(i);
+        double insertionDelta = to.insertionDelta(load, position);
+        if (!to.isFeasible(insertionDelta)) {
+            return false;
+        }
+
+        boolean emptiesRoute = from.getSize() == 1;
+        int drivers = emptiesRoute ? routes.size() - 1 : routes.size();
+        double cost = CalculationsUtil.calculateTotalCost(drivers, totalMinutes + from.removalDelta(i) + insertionDelta);
+        if (!accept(cost)) {
+            return false;
+        }
+
+        double previousMinutes = from.getCost() + to.getCost();
+        from.remove(i);
+        to.insert(load, position);
+        if (emptiesRoute) {
+            routes.remove(a);
+        }
+        apply(previousMinutes, from.getCost() + to.getCost());
+        return true;
+    }
+
+    /**
+     * Exchanges two random loads in between two random routes
+     */
+    private boolean swap() {
+        if (routes.size() < 2) {
+            return false;
+        }
+        int a = random.nextInt(routes.size());
+        int b = random.nextInt(routes.size() - 1);
+        b = b >= a ? b + 1 : b;
+        Route first = routes.get(a);
+        Route second = routes.get(b);
+
+        int i = random.nextInt(first.getSize());
+        int j = random.nextInt(second.getSize());
+        int firstLoad = first.getLoad(i);
+        int secondLoad = second.getLoad(j);
+        double firstDelta = first.replacementDelta(i, secondLoad);
+        double secondDelta = second.replacementDelta(j, firstLoad);
+        if (!first.isFeasible(firstDelta) || !second.isFeasible(secondDelta)) {
+            return false;
+        }
+
+        double cost = CalculationsUtil.calculateTotalCost(routes.size(), totalMinutes + firstDelta + secondDelta);
+        if (!accept(cost)) {
+            return false;
+        }
+
+        double previousMinutes = first.getCost() + second.getCost();
+        first.replace(i, secondLoad);
+        second.replace(j, firstLoad);
+        apply(previousMinutes, first.getCost() + second.getCost());
+        return true;
+    }
+
+    /**
+     * Reverses a random sequence of loads inside a random route
+     */
+    private boolean reverse() {
+        Route route = routes.get(random.nextInt(routes.size()));
+        if (route.getSize() < 2) {
+            return false;
+        }
+        int i = random.nextInt(route.getSize() - 1);
+        int j = i + 1 + random.nextInt(route.getSize() - i - 1);
+        double delta = route.reversalDelta(i, j);
+        if (!route.isFeasible(delta)) {
+            return false;
+        }
+
+        double cost = CalculationsUtil.calculateTotalCost(routes.size(), totalMinutes + delta);
+        if (!accept(cost)) {
+            return false;
+        }
+
+        double previousMinutes = route.getCost();
+        route.reverse(i, j);
+        apply(previousMinutes, route.getCost());
+        return true;
+    }
+
+    /**
+     * Metropolis criterion, using the cost increase relative to the current cost
+     */
+    private boolean accept(double cost) {
+        if (calibrating) {
+            if (cost > currentCost) {
+                calibrationIncrease += (cost - currentCost) / currentCost;
+                calibrationCount++;
+            }
+            return false;
+        }
+        if (cost <= currentCost) {
+            return true;
+        }
+        double increase = (cost - currentCost) / currentCost;
+        return temperature > 0 && random.nextDouble() < Math.exp(-increase / temperature);
+    }
+
+    private void apply(double previousMinutes, double newMinutes) {
+        // Use the recalculated route costs, instead of the deltas, so that rounding errors don't add up over time
+        totalMinutes += newMinutes - previousMinutes;
+        currentCost = CalculationsUtil.calculateTotalCost(routes.size(), totalMinutes);
+    }
+}
@@ -0,0 +1,341 @@
+package dev.mjuarez.challenge;
+
+import dev.mjuarez.util.CandidateGraph;
+import dev.mjuarez.util.DistanceModel;
+import dev.mjuarez.util.LoadSet;
+import dev.mjuarez.util.LowerBound;
+import dev.mjuarez.util.PickupGrid;
+import dev.mjuarez.util.Solution;
+import dev.mjuarez.util.SparseDistanceModel;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
+
+/**
+ * Runs independent restarts of the nearest neighbor search concurrently, one worker per thread.
+ * Every restart builds its own graph on top of the shared distance model, so the only mutable shared state is the restart
+ * counter and the best solution so far.
+ * Every restart also gets its own random generator, split from a single seed in order of restart, so the same seed always
+ * gives restart k the same random numbers, no matter which worker runs it.  The best solution says which seed and restart
+ * found it, so that search can be run again.
+ * Only the best solution so far is kept.  Every time it improves, it can be handed to a listener straight away, so the
+ * caller can use it before the solve is over.
+ * Every phase of every restart is timed and counted in SolverStats, see getStats.
+ * Optionally, restarts are cut short as soon as a lower bound says they can't beat the best solution so far, and the
+ * same bound tells how far the best solution could still be from optimal.
+ */
+public class SolverEngine {
+    // Only solutions within this ratio of the best one so far are worth improving with local search
+    private static final double LOCAL_SEARCH_THRESHOLD = 1.05;
+
+    private final LoadSet loads;
+    private final CandidateGraph distanceModel;
+    private final BitSet priorityLoads;
+    private final PickupGrid pickupGrid;
+    private final LowerBound lowerBound;
+    private final SolverOptions options;
+
+    private final AtomicReference<Solution> bestSolution = new AtomicReference<>();
+    private Solution initialSolution;
+
+    // Optional pool shared with other solves, see setExecutor
+    private ExecutorService sharedExecutor;
+
+    // Restarts are numbered and get their generator under the same lock, so that restart k is always the k-th split
+    private final Object restartLock = new Object();
+    private SplittableRandom restartGenerators;
+    private long restarts;
+    private long seed;
+    private final SolverStats stats = new SolverStats();
+
+    // Improvements are published one at a time, so that the listener always sees them in order of decreasing cost
+    private final Object publishLock = new Object();
+    private Solution published;
+    private Termination termination;
+    private Consumer<Solution> listener;
+
+    public SolverEngine(LoadSet loads, SolverOptions options) {
+        this.options = options;
+        this.loads = loads;
+        loads.checkReachable();
+
+        // Every restart shares the same drive times and priority loads, so these are only calculated once
+        SolverStats.Timer timer = stats.start(SolverStats.Phase.DISTANCE_MODEL);
+        this.distanceModel = options.getSparseNeighbors() > 0
+                ? new SparseDistanceModel(loads, options.getSparseNeighbors())
+                : new DistanceModel(loads);
+        timer.stop();
+        this.priorityLoads = AdjacencyMatrixGraph.selectPriorityLoads(loads);
+        this.pickupGrid = options.getNearestNeighbors() > 0 ? new PickupGrid(loads) : null;
+
+        // Only needed to prune restarts or to report the optimality gap
+        if (options.isBoundPruning() || options.isPrintStats()) {
+            timer = stats.start(SolverStats.Phase.LOWER_BOUND);
+            this.lowerBound = new LowerBound(loads);
+            timer.stop();
+            stats.setLowerBound(lowerBound);
+        } else {
+            this.lowerBound = null;
+        }
+    }
+
+    /**
+     * Starts every worker from this solution instead of its first restart, e.g. to warm start from a previous solve.
+     * With the savings construction, they start from whichever of the two is cheaper.
+     */
+    public void setInitialSolution(Solution initialSolution) {
+        this.initialSolution = initialSolution;
+    }
+
+    /**
+     * Runs the workers on the given pool, instead of one of its own, and leaves it running once the solve is over.
+     * A task of that same pool can solve on it too, as long as it's a ForkJoinPool, which runs the workers on the
+     * calling thread while every other thread of the pool is busy.
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.sharedExecutor = executor;
+    }
+
+    /**
+     * Keeps running restarts on every worker until maxRuntimeMs has elapsed, or any of the other termination criteria in
+     * the options is met, and returns the lowest-cost solution found
+     */
+    public Solution solve(long maxRuntimeMs) {
+        return solve(new Termination(maxRuntimeMs, options.getTargetCost(), options.getMaxStallMs()), null);
+    }
+
+    /**
+     * Keeps running restarts on every worker until termination, and returns the lowest-cost solution found.
+     * Every time the best solution improves, it's passed to the listener (if not null) from the worker that found it, so
+     * the listener should return quickly.
+     */
+    public Solution solve(Termination termination, Consumer<Solution> listener) {
+        this.termination = termination;
+        this.listener = listener;
+        SolverStats.Timer solveTimer = stats.start(SolverStats.Phase.SOLVE);
+        this.seed = options.getSeed() != null ? options.getSeed() : new SplittableRandom().nextLong();
+        synchronized (restartLock) {
+            this.restartGenerators = new SplittableRandom(seed);
+        }
+
+        // The savings construction is deterministic, so it only needs to run once, and every worker starts from it
+        Solution start = initialSolution;
+        if (options.getConstruction() == SolverOptions.Construction.SAVINGS) {
+            SolverStats.Timer timer = stats.start(SolverStats.Phase.SAVINGS);
+            Solution savings = new SavingsConstructor(distanceModel).build();
+            timer.stop();
+            if (start == null || savings.getTotalCost() < start.getTotalCost()) {
+                start = savings;
+            }
+        }
+
+        List<Callable<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < options.getParallelism(); i++) {
+            Solution initial = start;
+            workers.add(() -> runWorker(initial));
+        }
+
+        ExecutorService executor = sharedExecutor != null ? sharedExecutor : createExecutor();
+        try {
+            for (Future<Void> future : executor.invokeAll(workers)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Solver worker failed", e.getCause());
+        } finally {
+            if (executor != sharedExecutor) {
+                executor.shutdownNow();
+            }
+        }
+        solveTimer.stop();
+        if (options.isPrintStats()) {
+            System.err.println(stats.toJson());
+        }
+        return bestSolution.get();
+    }
+
+    public long getRestarts() {
+        synchronized (restartLock) {
+            return restarts;
+        }
+    }
+
+    /**
+     * Seed of the last solve, either the one from the options or the one picked at random
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    public SolverStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Lower bound of the problem, or null if it wasn't needed by the options
+     */
+    public LowerBound getLowerBound() {
+        return lowerBound;
+    }
+
+    private ExecutorService createExecutor() {
+        return switch (options.getPoolType()) {
+            case PLATFORM_THREADS -> Executors.newFixedThreadPool(options.getParallelism());
+            case FORK_JOIN -> new ForkJoinPool(options.getParallelism());
+        };
+    }
+
+    private Void runWorker(Solution initial) {
+        LocalSearch localSearch = options.isLocalSearch() ? new LocalSearch() : null;
+        do {
+            long restart;
+            SplittableRandom random;
+            synchronized (restartLock) {
+                restart = restarts++;
+                random = restartGenerators.split();
+            }
+            stats.onRestart();
+
+            Solution solution;
+            if (initial != null) {
+                // The first iteration of every worker starts from the constructed solution, the rest are regular restarts
+                solution = initial;
+                initial = null;
+            } else {
+                solution = findNearestNeighborSolution(restart, random);
+                if (solution == null) {
+                    // Out of time, or cut short by the lower bound since it couldn't beat the best solution so far
+                    continue;
+                }
+            }
+            if (localSearch != null && isWorthImproving(solution)) {
+                SolverStats.Timer timer = stats.start(SolverStats.Phase.LOCAL_SEARCH);
+                Solution improved = localSearch.improve(solution, termination);
+                timer.stop();
+                stats.onLocalSearch(improved != solution);
+                solution = improved;
+            }
+            offer(solution.withOrigin(seed, restart));
+
+            // ALNS or simulated annealing take over the rest of the time budget, starting from this first solution
+            if (options.isAlns()) {
+                CoolingSchedule.Type schedule = options.getAnnealing() != null ? options.getAnnealing() : CoolingSchedule.Type.EXPONENTIAL;
+                AdaptiveLargeNeighborhoodSearch alns = new AdaptiveLargeNeighborhoodSearch(distanceModel, loads, CoolingSchedule.create(schedule), random);
+                SolverStats.Timer timer = stats.start(SolverStats.Phase.ALNS);
+                Solution searched = alns.search(solution, termination, best -> offer(best.withOrigin(seed, restart)));
+                timer.stop();
+                stats.onAlns(alns.getIterations(), alns.getAcceptedIterations());
+                offer(searched.withOrigin(seed, restart));
+            } else if (options.getAnnealing() != null) {
+                SimulatedAnnealing annealing = new SimulatedAnnealing(CoolingSchedule.create(options.getAnnealing()), random);
+                SolverStats.Timer timer = stats.start(SolverStats.Phase.ANNEALING);
+                Solution annealed = annealing.anneal(solution, termination, best -> offer(best.withOrigin(seed, restart)));
+                timer.stop();
+                stats.onAnnealing(annealing.getMoves(), annealing.getAcceptedMoves());
+                offer(annealed.withOrigin(seed, restart));
+            }
+        } while (!termination.isReached() && !Thread.currentThread().isInterrupted());
+        return null;
+    }
+
+    private Solution findNearestNeighborSolution(long restart, RandomGenerator random) {
+        // First restart is a baseline without simulated annealing or priority loads, the rest use simulated annealing
+        // with priority loads on every other restart
+        boolean simulatedAnnealing = restart > 0;
+        boolean priorityLoads = restart > 0 && restart % 2 == 1;
+
+        SolverStats.Timer timer = stats.start(SolverStats.Phase.GRAPH);
+        AdjacencyMatrixGraph matrixGraph = createAdjacencyMatrixGraph(distanceModel, simulatedAnnealing, priorityLoads ? this.priorityLoads : null, random, options.getSearchMode());
+        if (pickupGrid != null) {
+            matrixGraph.setCandidateIndex(pickupGrid, options.getNearestNeighbors());
+        }
+        matrixGraph.setPruneUnreachable(options.isPruneUnreachable());
+        if (options.isBoundPruning()) {
+            matrixGraph.setCostBound(lowerBound, this::getPruningCost);
+        }
+        matrixGraph.setTermination(termination);
+        timer.stop();
+
+        timer = stats.start(SolverStats.Phase.SEARCH);
+        Solution solution = matrixGraph.findSolution();
+        timer.stop();
+        if (solution == null) {
+            // Either out of time, or cut short by the lower bound
+            if (!termination.isReached()) {
+                stats.onPruned(matrixGraph.getSearchSteps());
+            }
+            return null;
+        }
+        stats.onSearch(solution.getRoutes().size(), matrixGraph.getSearchSteps(), matrixGraph.getMaxSearchDepth(), matrixGraph.getShuffles());
+        return solution;
+    }
+
+    /**
+     * Solutions over this cost can't become the best one, not even after local search
+     */
+    private double getPruningCost() {
+        Solution current = bestSolution.get();
+        if (current == null) {
+            return Double.MAX_VALUE;
+        }
+        return options.isLocalSearch() ? current.getTotalCost() * LOCAL_SEARCH_THRESHOLD : current.getTotalCost();
+    }
+
+    private boolean isWorthImproving(Solution solution) {
+        Solution current = bestSolution.get();
+        return current == null || solution.getTotalCost() <= current.getTotalCost() * LOCAL_SEARCH_THRESHOLD;
+    }
+
+    /**
+     * Publishes the solution if it is cheaper than the current best, retrying if another worker got there first
+     */
+    private void offer(Solution solution) {
+        Solution current;
+        do {
+            current = bestSolution.get();
+            if (current != null && current.getTotalCost() <= solution.getTotalCost()) {
+                return;
+            }
+        } while (!bestSolution.compareAndSet(current, solution));
+        publish(solution);
+    }
+
+    private void publish(Solution solution) {
+        synchronized (publishLock) {
+            // Another worker may have published an even cheaper one in between the swap and getting here
+            if (published != null && published.getTotalCost() <= solution.getTotalCost()) {
+                return;
+            }
+            published = solution;
+            stats.onImprovement(solution);
+            termination.onImprovement(solution.getTotalCost());
+            if (listener != null) {
+                listener.accept(solution);
+            }
+        }
+    }
+
+    static AdjacencyMatrixGraph createAdjacencyMatrixGraph(CandidateGraph distanceModel, boolean simulatedAnnealing, BitSet priorityLoads, RandomGenerator random, AdjacencyMatrixGraph.SearchMode searchMode) {
+        AdjacencyMatrixGraph matrixGraph = new AdjacencyMatrixGraph(distanceModel, simulatedAnnealing, random, searchMode);
+
+        // Optionally, add the priority loads so they're available for optimization inside the matrixGraph
+        if (priorityLoads != null) {
+            matrixGraph.setPriorityLoads(priorityLoads);
+        }
+
+        return matrixGraph;
+    }
+}
@@ -0,0 +1,336 @@
+package dev.mjuarez.challenge;
+
+/**
+ * Command line options for the solver.  The only required argument is the path to the problem file, unless it runs as
+ * a server, everything else is optional and looks like this:
+ * --threads=32 --pool=forkjoin --search=recursive --neighbors=16 --sparse=24 --prune --bound --local-search --alns --annealing=adaptive --construction=savings
+ * --server=8080 --concurrent-solves=2 --target-cost=2.5e8 --stall=3000 --stats --seed=42 --partitions=8 --partitioning=kmeans
+ * --batch=problems/ --batch-budget=600000 --batch-split=size --output=solutions/ --snapshot=today.snap --warm-start=yesterday.snap
+ */
+public class SolverOptions implements Cloneable {
+
+    public enum Construction {
+        NEAREST_NEIGHBOR,
+        SAVINGS
+    }
+
+    public enum Partitioning {
+        SWEEP,
+        K_MEANS
+    }
+
+    public enum PoolType {
+        PLATFORM_THREADS,
+        FORK_JOIN
+    }
+
+    private String problemPath;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private PoolType poolType = PoolType.PLATFORM_THREADS;
+    private AdjacencyMatrixGraph.SearchMode searchMode = AdjacencyMatrixGraph.SearchMode.ITERATIVE;
+    private int nearestNeighbors = 0;
+    private int sparseNeighbors = 0;
+    private boolean pruneUnreachable = false;
+    private boolean boundPruning = false;
+    private boolean localSearch = false;
+    private boolean alns = false;
+    private CoolingSchedule.Type annealing = null;
+    private Construction construction = Construction.NEAREST_NEIGHBOR;
+    private int serverPort = 0;
+    private int concurrentSolves = 1;
+    private double targetCost = 0;
+    private long maxStallMs = 0;
+    private boolean printStats = false;
+    private Long seed = null;
+    private int partitions = 0;
+    private Partitioning partitioning = Partitioning.SWEEP;
+    private String batchPath;
+    private long batchBudgetMs = 0;
+    private BatchSolver.BudgetSplit budgetSplit = BatchSolver.BudgetSplit.EQUAL;
+    private String outputDirectory;
+    private String snapshotPath;
+    private String warmStartPath;
+
+    public static SolverOptions fromArgs(String[] args) {
+        SolverOptions options = new SolverOptions();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                options.problemPath = arg;
+                continue;
+            }
+            String[] keyValue = arg.substring(2).split("=", 2);
+            String value = keyValue.length > 1 ? keyValue[1] : "";
+            switch (keyValue[0]) {
+                case "threads" -> options.parallelism = Math.max(1, Integer.parseInt(value));
+                case "pool" -> options.poolType = parsePoolType(value);
+                case "search" -> options.searchMode = parseSearchMode(value);
+                case "neighbors" -> options.nearestNeighbors = Math.max(0, Integer.parseInt(value));
+                case "sparse" -> options.sparseNeighbors = Math.max(0, Integer.parseInt(value));
+                case "prune" -> options.pruneUnreachable = value.isEmpty() || Boolean.parseBoolean(value);
+                case "bound" -> options.boundPruning = value.isEmpty() || Boolean.parseBoolean(value);
+                case "local-search" -> options.localSearch = value.isEmpty() || Boolean.parseBoolean(value);
+                case "alns" -> options.alns = value.isEmpty() || Boolean.parseBoolean(value);
+                case "annealing" -> options.annealing = parseCoolingSchedule(value);
+                case "construction" -> options.construction = parseConstruction(value);
+                case "server" -> options.serverPort = Integer.parseInt(value);
+                case "concurrent-solves" -> options.concurrentSolves = Math.max(1, Integer.parseInt(value));
+                case "target-cost" -> options.targetCost = Math.max(0, Double.parseDouble(value));
+                case "stall" -> options.maxStallMs = Math.max(0, Long.parseLong(value));
+                case "stats" -> options.printStats = value.isEmpty() || Boolean.parseBoolean(value);
+                case "seed" -> options.seed = Long.parseLong(value);
+                case "partitions" -> options.partitions = Math.max(0, Integer.parseInt(value));
+                case "partitioning" -> options.partitioning = parsePartitioning(value);
+                case "batch" -> options.batchPath = value;
+                case "batch-budget" -> options.batchBudgetMs = Math.max(0, Long.parseLong(value));
+                case "batch-split" -> options.budgetSplit = parseBudgetSplit(value);
+                case "output" -> options.outputDirectory = value;
+                case "snapshot" -> options.snapshotPath = value;
+                case "warm-start" -> options.warmStartPath = value;
+                default -> throw new IllegalArgumentException(String.format("Unknown option [%s]", arg));
+            }
+        }
+        if (options.problemPath == null && options.serverPort == 0 && options.batchPath == null) {
+            throw new IllegalArgumentException("Missing path to the problem file");
+        }
+        return options;
+    }
+
+    private static PoolType parsePoolType(String value) {
+        return switch (value) {
+            case "threads" -> PoolType.PLATFORM_THREADS;
+            case "forkjoin" -> PoolType.FORK_JOIN;
+            default -> throw new IllegalArgumentException(String.format("Unknown pool type [%s]", value));
+        };
+    }
+
+    private static AdjacencyMatrixGraph.SearchMode parseSearchMode(String value) {
+        return switch (value) {
+            case "iterative" -> AdjacencyMatrixGraph.SearchMode.ITERATIVE;
+            case "recursive" -> AdjacencyMatrixGraph.SearchMode.RECURSIVE;
+            default -> throw new IllegalArgumentException(String.format("Unknown search mode [%s]", value));
+        };
+    }
+
+    private static CoolingSchedule.Type parseCoolingSchedule(String value) {
+        return switch (value) {
+            case "exponential" -> CoolingSchedule.Type.EXPONENTIAL;
+            case "linear" -> CoolingSchedule.Type.LINEAR;
+            case "adaptive" -> CoolingSchedule.Type.ADAPTIVE;
+            default -> throw new IllegalArgumentException(String.format("Unknown cooling schedule [%s]", value));
+        };
+    }
+
+    private static Construction parseConstruction(String value) {
+        return switch (value) {
+            case "nearest" -> Construction.NEAREST_NEIGHBOR;
+            case "savings" -> Construction.SAVINGS;
+            default -> throw new IllegalArgumentException(String.format("Unknown construction [%s]", value));
+        };
+    }
+
+    private static Partitioning parsePartitioning(String value) {
+        return switch (value) {
+            case "sweep" -> Partitioning.SWEEP;
+            case "kmeans" -> Partitioning.K_MEANS;
+            default -> throw new IllegalArgumentException(String.format("Unknown partitioning [%s]", value));
+        };
+    }
+
+    private static BatchSolver.BudgetSplit parseBudgetSplit(String value) {
+        return switch (value) {
+            case "equal" -> BatchSolver.BudgetSplit.EQUAL;
+            case "size" -> BatchSolver.BudgetSplit.BY_SIZE;
+            default -> throw new IllegalArgumentException(String.format("Unknown batch split [%s]", value));
+        };
+    }
+
+    /**
+     * Options to solve a single partition with: a single worker, since partitions already run in parallel, no
+     * partitioning of its own, no target cost (it's meant for the whole problem), and its own seed.  Stats are still
+     * printed, once per partition
+     */
+    SolverOptions forPartition(long seed) {
+        SolverOptions options = copy();
+        options.parallelism = 1;
+        options.partitions = 0;
+        options.targetCost = 0;
+        options.seed = seed;
+        return options;
+    }
+
+    /**
+     * Options to solve every problem of a batch with, a single worker each, since problems already run in parallel
+     */
+    SolverOptions forBatch() {
+        SolverOptions options = copy();
+        options.parallelism = 1;
+        options.batchPath = null;
+        return options;
+    }
+
+    private SolverOptions copy() {
+        try {
+            return (SolverOptions) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public String getProblemPath() {
+        return problemPath;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public PoolType getPoolType() {
+        return poolType;
+    }
+
+    public AdjacencyMatrixGraph.SearchMode getSearchMode() {
+        return searchMode;
+    }
+
+    /**
+     * Number of nearest pickups to look at from every dropoff, or zero to look at every load
+     */
+    public int getNearestNeighbors() {
+        return nearestNeighbors;
+    }
+
+    /**
+     * Number of nearest pickups to keep from every dropoff in a sparse candidate graph, or zero to keep the whole
+     * distance matrix
+     */
+    public int getSparseNeighbors() {
+        return sparseNeighbors;
+    }
+
+    public boolean isPruneUnreachable() {
+        return pruneUnreachable;
+    }
+
+    public boolean isBoundPruning() {
+        return boundPruning;
+    }
+
+    public boolean isLocalSearch() {
+        return localSearch;
+    }
+
+    /**
+     * Run adaptive large neighborhood search for the rest of the time budget, instead of simulated annealing, using
+     * the cooling schedule of the annealing for its acceptance criterion, if there is one
+     */
+    public boolean isAlns() {
+        return alns;
+    }
+
+    /**
+     * Cooling schedule for simulated annealing over complete solutions, or null if it's disabled
+     */
+    public CoolingSchedule.Type getAnnealing() {
+        return annealing;
+    }
+
+    /**
+     * How the first solution of every worker is built, the rest of the restarts always use nearest neighbor
+     */
+    public Construction getConstruction() {
+        return construction;
+    }
+
+    /**
+     * Port to listen on when running as a server, or zero to solve the problem file and exit
+     */
+    public int getServerPort() {
+        return serverPort;
+    }
+
+    /**
+     * How many solves the server runs at the same time, each one of them using every worker thread
+     */
+    public int getConcurrentSolves() {
+        return concurrentSolves;
+    }
+
+    /**
+     * Stop as soon as a solution is at or below this cost, or zero to always use the whole time budget
+     */
+    public double getTargetCost() {
+        return targetCost;
+    }
+
+    /**
+     * Stop once the best solution hasn't improved for this long, or zero to always use the whole time budget
+     */
+    public long getMaxStallMs() {
+        return maxStallMs;
+    }
+
+    /**
+     * Print the counters and phase timings of every solve to stderr as JSON, once it's done
+     */
+    public boolean isPrintStats() {
+        return printStats;
+    }
+
+    /**
+     * Seed of every random number used by the solver, or null to pick a new one for every solve
+     */
+    public Long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Number of geographic partitions to split the loads into and solve on their own, or zero (or one) to solve the
+     * whole problem at once
+     */
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public Partitioning getPartitioning() {
+        return partitioning;
+    }
+
+    /**
+     * Directory or manifest of problem files to solve in a single batch, or null to solve a single problem file
+     */
+    public String getBatchPath() {
+        return batchPath;
+    }
+
+    /**
+     * Time budget of the whole batch, or zero to give every problem the time budget of a single solve
+     */
+    public long getBatchBudgetMs() {
+        return batchBudgetMs;
+    }
+
+    public BatchSolver.BudgetSplit getBudgetSplit() {
+        return budgetSplit;
+    }
+
+    /**
+     * Directory to write the solutions of a batch to, or null to write every one of them next to its problem file
+     */
+    public String getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    /**
+     * Where to write a snapshot of the problem and its best solution, or null to not write one
+     */
+    public String getSnapshotPath() {
+        return snapshotPath;
+    }
+
+    /**
+     * Snapshot of a previous solve to start from, or null to start from scratch
+     */
+    public String getWarmStartPath() {
+        return warmStartPath;
+    }
+}
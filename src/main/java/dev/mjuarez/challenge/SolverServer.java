@@ -0,0 +1,355 @@
+package dev.mjuarez.challenge;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dev.mjuarez.util.Json;
+import dev.mjuarez.util.LoadFileParser;
+import dev.mjuarez.util.LoadSet;
+import dev.mjuarez.util.Route;
+import dev.mjuarez.util.Solution;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embedded HTTP server, so that the JVM stays warm in between solves.  Problems are sent to POST /solve, either in the
+ * same text format as the problem files, or as JSON when the content type says so:
+ * {"budgetMs": 5000, "loads": [{"id": 1, "pickup": [-9.1, -48.9], "dropoff": [-116.8, 76.8]}]}
+ * The response has the routes in the same format as the command line.  The time budget of a solve can also be set with
+ * ?budgetMs=N, and defaults to MAX_ALLOWED_RUNTIME_MS.
+ * Solves run on a bounded pool, with a bounded queue in front of it, anything that doesn't fit is rejected with a 503.
+ * The seed and restart that found the solution are in the X-Solver-Seed and X-Solver-Restart headers of the response.
+ * Solutions that are already running can be kept up to date with POST /update (see IncrementalSolver), in JSON only:
+ * {"budgetMs": 500, "loads": [...], "routes": [[1, 3], [2]], "inserted": [...], "removed": [3]}
+ * with the current loads and their routes by id, the new loads in the same format as the loads, and the ids of the
+ * cancelled ones.  The response has the updated routes, same as a solve.
+ * Requests over MAX_REQUEST_BYTES are rejected with a 413, before they're parsed.
+ */
+public class SolverServer {
+    private static final int QUEUE_CAPACITY = 16;
+    private static final long MAX_BUDGET_MS = 5 * 60_000;
+    private static final String BUDGET_PARAMETER = "budgetMs";
+    // Well over the 1.6 MB of a problem with 20,000 loads, and small enough that a few requests can't fill the heap
+    private static final int MAX_REQUEST_BYTES = 16 << 20;
+
+    private final SolverOptions options;
+    private final HttpServer server;
+    private final ThreadPoolExecutor solves;
+
+    public SolverServer(SolverOptions options) throws IOException {
+        this.options = options;
+        this.solves = new ThreadPoolExecutor(options.getConcurrentSolves(), options.getConcurrentSolves(), 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY));
+        this.server = HttpServer.create(new InetSocketAddress(options.getServerPort()), 0);
+        // Requests only parse their input and wait for their solve, so they are cheap to run on virtual threads
+        this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        this.server.createContext("/solve", this::handleSolve);
+        this.server.createContext("/update", this::handleUpdate);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        solves.shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handleSolve(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "Only POST is supported\n");
+                return;
+            }
+
+            byte[] body = readBody(exchange);
+            if (body == null) {
+                respond(exchange, 413, String.format("Request is over the max size [%d bytes]\n", MAX_REQUEST_BYTES));
+                return;
+            }
+
+            LoadSet loads;
+            long budgetMs = MainApplication.MAX_ALLOWED_RUNTIME_MS;
+            try {
+                String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+                if (contentType != null && contentType.contains("json")) {
+                    Map<?, ?> request = asObject(Json.parse(new String(body, StandardCharsets.UTF_8)));
+                    loads = toLoadSet(request.get("loads"));
+                    if (request.get(BUDGET_PARAMETER) != null) {
+                        budgetMs = asNumber(request.get(BUDGET_PARAMETER)).longValue();
+                    }
+                } else {
+                    loads = LoadFileParser.parse(Channels.newChannel(new ByteArrayInputStream(body)));
+                }
+                String budgetParameter = getQueryParameter(exchange, BUDGET_PARAMETER);
+                if (budgetParameter != null) {
+                    budgetMs = Long.parseLong(budgetParameter);
+                }
+                if (loads.getNumOfLoads() == 0) {
+                    throw new IllegalArgumentException("No loads to solve");
+                }
+            } catch (IllegalArgumentException e) {
+                respond(exchange, 400, e.getMessage() + "\n");
+                return;
+            }
+
+            long budget = Math.min(MAX_BUDGET_MS, Math.max(1, budgetMs));
+            Future<Solution> solve;
+            try {
+                solve = solves.submit(() -> MainApplication.solve(loads, options, budget));
+            } catch (RejectedExecutionException e) {
+                respond(exchange, 503, "Too many solves in progress, try again later\n");
+                return;
+            }
+
+            try {
+                Solution solution = solve.get();
+                if (solution != null) {
+                    exchange.getResponseHeaders().set("X-Solver-Seed", Long.toString(solution.getSeed()));
+                    if (solution.getRestart() >= 0) {
+                        exchange.getResponseHeaders().set("X-Solver-Restart", Long.toString(solution.getRestart()));
+                    }
+                }
+                respond(exchange, 200, MainApplication.formatSolution(solution, loads));
+            } catch (InterruptedException e) {
+                solve.cancel(true);
+                Thread.currentThread().interrupt();
+                respond(exchange, 503, "Server is shutting down\n");
+            } catch (ExecutionException e) {
+                // Problems without a solution, like a load that can't be done within the max drive time, are only found
+                // once the solver starts
+                if (e.getCause() instanceof IllegalArgumentException) {
+                    respond(exchange, 400, e.getCause().getMessage() + "\n");
+                } else {
+                    respond(exchange, 500, String.format("Solve failed [%s]\n", e.getCause()));
+                }
+            }
+        }
+    }
+
+    private void handleUpdate(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "Only POST is supported\n");
+                return;
+            }
+
+            byte[] body = readBody(exchange);
+            if (body == null) {
+                respond(exchange, 413, String.format("Request is over the max size [%d bytes]\n", MAX_REQUEST_BYTES));
+                return;
+            }
+
+            IncrementalSolver solver;
+            LoadSet inserted;
+            int[] removedIds;
+            long budgetMs = MainApplication.MAX_ALLOWED_RUNTIME_MS;
+            try {
+                Map<?, ?> request = asObject(Json.parse(new String(body, StandardCharsets.UTF_8)));
+                LoadSet loads = toLoadSet(request.get("loads"));
+                solver = new IncrementalSolver(loads, toSolution(request.get("routes"), loads));
+                inserted = toLoadSet(request.get("inserted") != null ? request.get("inserted") : List.of());
+                removedIds = toIds(request.get("removed") != null ? request.get("removed") : List.of());
+                if (request.get(BUDGET_PARAMETER) != null) {
+                    budgetMs = asNumber(request.get(BUDGET_PARAMETER)).longValue();
+                }
+                String budgetParameter = getQueryParameter(exchange, BUDGET_PARAMETER);
+                if (budgetParameter != null) {
+                    budgetMs = Long.parseLong(budgetParameter);
+                }
+            } catch (IllegalArgumentException e) {
+                respond(exchange, 400, e.getMessage() + "\n");
+                return;
+            }
+
+            long budget = Math.min(MAX_BUDGET_MS, Math.max(1, budgetMs));
+            Future<Solution> update;
+            try {
+                update = solves.submit(() -> solver.update(inserted, removedIds, new Termination(budget)));
+            } catch (RejectedExecutionException e) {
+                respond(exchange, 503, "Too many solves in progress, try again later\n");
+                return;
+            }
+
+            try {
+                Solution solution = update.get();
+                respond(exchange, 200, MainApplication.formatSolution(solution, solver.getLoads()));
+            } catch (InterruptedException e) {
+                update.cancel(true);
+                Thread.currentThread().interrupt();
+                respond(exchange, 503, "Server is shutting down\n");
+            } catch (ExecutionException e) {
+                // Unknown or duplicated ids, or unreachable loads, in the delta are only found once the update runs
+                if (e.getCause() instanceof IllegalArgumentException) {
+                    respond(exchange, 400, e.getCause().getMessage() + "\n");
+                } else {
+                    respond(exchange, 500, String.format("Update failed [%s]\n", e.getCause()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Current routes of an update, as arrays of load ids.  Every load has to be in exactly one route, within the max
+     * drive time, same as any other solution.
+     */
+    private static Solution toSolution(Object value, LoadSet loads) {
+        if (!(value instanceof List<?> list)) {
+            throw new IllegalArgumentException("Expected an array of routes");
+        }
+        Map<Integer, Integer> indexById = new HashMap<>(loads.getNumOfLoads() * 2);
+        for (int i = 0; i < loads.getNumOfLoads(); i++) {
+            if (indexById.put(loads.getId(i), i) != null) {
+                throw new IllegalArgumentException(String.format("Load [%s] already exists", loads.getId(i)));
+            }
+        }
+
+        boolean[] routed = new boolean[loads.getNumOfLoads()];
+        int numOfRouted = 0;
+        List<Route> routes = new ArrayList<>(list.size());
+        for (Object item : list) {
+            int[] ids = toIds(item);
+            if (ids.length == 0) {
+                throw new IllegalArgumentException("Empty route");
+            }
+            int[] route = new int[ids.length];
+            for (int k = 0; k < ids.length; k++) {
+                Integer index = indexById.get(ids[k]);
+                if (index == null) {
+                    throw new IllegalArgumentException(String.format("Unknown load [%s]", ids[k]));
+                }
+                if (routed[index]) {
+                    throw new IllegalArgumentException(String.format("Load in more than one route [%s]", ids[k]));
+                }
+                routed[index] = true;
+                numOfRouted++;
+                route[k] = index;
+            }
+            Route parsed = new Route(loads, route, route.length);
+            if (!parsed.isFeasible(0)) {
+                throw new IllegalArgumentException(String.format("Route over the max drive time [%s]", item));
+            }
+            routes.add(parsed);
+        }
+        if (numOfRouted != loads.getNumOfLoads()) {
+            throw new IllegalArgumentException(String.format("[%d] loads missing from the routes", loads.getNumOfLoads() - numOfRouted));
+        }
+        return new Solution(routes);
+    }
+
+    private static int[] toIds(Object value) {
+        if (!(value instanceof List<?> list)) {
+            throw new IllegalArgumentException(String.format("Expected an array of ids instead of [%s]", value));
+        }
+        int[] ids = new int[list.size()];
+        for (int k = 0; k < ids.length; k++) {
+            ids[k] = asId(list.get(k));
+        }
+        return ids;
+    }
+
+    /**
+     * Loads from the JSON request, which look like {"id": 1, "pickup": [x, y], "dropoff": [x, y]}
+     */
+    private static LoadSet toLoadSet(Object value) {
+        if (!(value instanceof List<?> list)) {
+            throw new IllegalArgumentException("Expected an array of loads");
+        }
+        LoadSet loads = new LoadSet(list.size());
+        for (Object item : list) {
+            Map<?, ?> load = asObject(item);
+            List<?> pickup = asPoint(load.get("pickup"));
+            List<?> dropoff = asPoint(load.get("dropoff"));
+            loads.add(asId(load.get("id")),
+                    asNumber(pickup.get(0)).doubleValue(), asNumber(pickup.get(1)).doubleValue(),
+                    asNumber(dropoff.get(0)).doubleValue(), asNumber(dropoff.get(1)).doubleValue());
+        }
+        return loads;
+    }
+
+    private static Map<?, ?> asObject(Object value) {
+        if (!(value instanceof Map<?, ?> map)) {
+            throw new IllegalArgumentException(String.format("Expected an object instead of [%s]", value));
+        }
+        return map;
+    }
+
+    private static List<?> asPoint(Object value) {
+        if (!(value instanceof List<?> list) || list.size() != 2) {
+            throw new IllegalArgumentException(String.format("Expected a point like [x, y] instead of [%s]", value));
+        }
+        return list;
+    }
+
+    private static Number asNumber(Object value) {
+        if (!(value instanceof Number number)) {
+            throw new IllegalArgumentException(String.format("Expected a number instead of [%s]", value));
+        }
+        return number;
+    }
+
+    /**
+     * Ids are ints, any other number would silently turn into a different id
+     */
+    private static int asId(Object value) {
+        double number = asNumber(value).doubleValue();
+        if (number != Math.rint(number) || number < Integer.MIN_VALUE || number > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format("Expected an integer id instead of [%s]", value));
+        }
+        return (int) number;
+    }
+
+    /**
+     * Whole body of the request, or null if it's over MAX_REQUEST_BYTES, which is never read past
+     */
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            byte[] bytes = body.readNBytes(MAX_REQUEST_BYTES + 1);
+            return bytes.length > MAX_REQUEST_BYTES ? null : bytes;
+        }
+    }
+
+    private static String getQueryParameter(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String parameter : query.split("&")) {
+            String[] keyValue = parameter.split("=", 2);
+            if (keyValue[0].equals(name)) {
+                return keyValue.length > 1 ? keyValue[1] : "";
+            }
+        }
+        return null;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package dev.mjuarez.challenge;
+
+import dev.mjuarez.util.LowerBound;
+import dev.mjuarez.util.Solution;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and timings of a solve, cheap enough to leave on all the time.  Every worker updates them concurrently, so
+ * they're all LongAdders: the search keeps its own plain counters while it runs, and only adds them here once per restart.
+ * Every phase and every new best solution is also a JDK Flight Recorder event, which costs next to nothing unless a
+ * recording is running, e.g. with -XX:StartFlightRecording=filename=solve.jfr
+ */
+public final class SolverStats {
+
+    public enum Phase {
+        SOLVE,
+        DISTANCE_MODEL,
+        LOWER_BOUND,
+        SAVINGS,
+        GRAPH,
+        SEARCH,
+        LOCAL_SEARCH,
+        ANNEALING,
+        ALNS
+    }
+
+    // Durations are bucketed by powers of two of microseconds, the last bucket takes anything over half an hour
+    private static final int BUCKETS = 32;
+
+    private final LongAdder restarts = new LongAdder();
+    private final LongAdder prunedRestarts = new LongAdder();
+    private final LongAdder routes = new LongAdder();
+    private final LongAdder searchSteps = new LongAdder();
+    private final LongAccumulator maxSearchDepth = new LongAccumulator(Math::max, 0);
+    private final LongAdder shuffles = new LongAdder();
+    private final LongAdder localSearchImprovements = new LongAdder();
+    private final LongAdder annealingMoves = new LongAdder();
+    private final LongAdder annealingAcceptedMoves = new LongAdder();
+    private final LongAdder alnsIterations = new LongAdder();
+    private final LongAdder alnsAcceptedIterations = new LongAdder();
+    private final LongAdder improvements = new LongAdder();
+    private final PhaseTimes[] phases = new PhaseTimes[Phase.values().length];
+
+    // Only written while publishing, which is serialized by the engine
+    private volatile double bestCost;
+    private volatile int bestDrivers;
+    private volatile long bestSeed;
+    private volatile long bestRestart = -1;
+    private volatile LowerBound lowerBound;
+
+    public SolverStats() {
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new PhaseTimes();
+        }
+    }
+
+    public Timer start(Phase phase) {
+        return new Timer(phase);
+    }
+
+    void onRestart() {
+        restarts.increment();
+    }
+
+    void onSearch(int routes, long steps, int maxDepth, long shuffles) {
+        this.routes.add(routes);
+        this.searchSteps.add(steps);
+        this.maxSearchDepth.accumulate(maxDepth);
+        this.shuffles.add(shuffles);
+    }
+
+    /**
+     * A restart that was cut short by the lower bound, its steps still count, but not its routes
+     */
+    void onPruned(long steps) {
+        prunedRestarts.increment();
+        searchSteps.add(steps);
+    }
+
+    void setLowerBound(LowerBound lowerBound) {
+        this.lowerBound = lowerBound;
+    }
+
+    void onLocalSearch(boolean improved) {
+        if (improved) {
+            localSearchImprovements.increment();
+        }
+    }
+
+    void onAnnealing(long moves, long acceptedMoves) {
+        annealingMoves.add(moves);
+        annealingAcceptedMoves.add(acceptedMoves);
+    }
+
+    void onAlns(long iterations, long acceptedIterations) {
+        alnsIterations.add(iterations);
+        alnsAcceptedIterations.add(acceptedIterations);
+    }
+
+    void onImprovement(Solution solution) {
+        improvements.increment();
+        bestCost = solution.getTotalCost();
+        bestDrivers = solution.getRoutes().size();
+        bestSeed = solution.getSeed();
+        bestRestart = solution.getRestart();
+
+        ImprovementEvent event = new ImprovementEvent();
+        event.cost = bestCost;
+        event.drivers = bestDrivers;
+        event.restart = bestRestart;
+        event.commit();
+    }
+
+    public long getRestarts() {
+        return restarts.sum();
+    }
+
+    public long getCount(Phase phase) {
+        return phases[phase.ordinal()].count.sum();
+    }
+
+    public long getTotalNanos(Phase phase) {
+        return phases[phase.ordinal()].totalNanos.sum();
+    }
+
+    /**
+     * Every counter and phase as a single line of JSON.  Histogram keys are the exclusive upper bound of every
+     * bucket in microseconds, and only the buckets with something in them are included.
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{");
+        json.append("\"restarts\":").append(restarts.sum());
+        json.append(",\"prunedRestarts\":").append(prunedRestarts.sum());
+        json.append(",\"routes\":").append(routes.sum());
+        json.append(",\"searchSteps\":").append(searchSteps.sum());
+        json.append(",\"maxSearchDepth\":").append(maxSearchDepth.get());
+        json.append(",\"shuffles\":").append(shuffles.sum());
+        json.append(",\"localSearchImprovements\":").append(localSearchImprovements.sum());
+        json.append(",\"annealingMoves\":").append(annealingMoves.sum());
+        json.append(",\"annealingAcceptedMoves\":").append(annealingAcceptedMoves.sum());
+        json.append(",\"alnsIterations\":").append(alnsIterations.sum());
+        json.append(",\"alnsAcceptedIterations\":").append(alnsAcceptedIterations.sum());
+        json.append(",\"improvements\":").append(improvements.sum());
+        json.append(",\"bestCost\":").append(String.format(Locale.ROOT, "%.3f", bestCost));
+        json.append(",\"drivers\":").append(bestDrivers);
+        json.append(",\"seed\":").append(bestSeed);
+        json.append(",\"restart\":").append(bestRestart);
+        if (lowerBound != null) {
+            json.append(",\"lowerBound\":").append(String.format(Locale.ROOT, "%.3f", lowerBound.getCost()));
+            json.append(",\"minDrivers\":").append(lowerBound.getDrivers());
+            json.append(",\"gap\":").append(String.format(Locale.ROOT, "%.6f", lowerBound.gap(bestCost)));
+        }
+        json.append(",\"phases\":{");
+        boolean first = true;
+        for (Phase phase : Phase.values()) {
+            PhaseTimes times = phases[phase.ordinal()];
+            if (times.count.sum() == 0) {
+                continue;
+            }
+            json.append(first ? "" : ",").append('"').append(phase.name().toLowerCase(Locale.ROOT)).append("\":");
+            times.appendJson(json);
+            first = false;
+        }
+        return json.append("}}").toString();
+    }
+
+    /**
+     * Time spent in a single phase, started with SolverStats.start and recorded when stopped
+     */
+    public final class Timer {
+        private final Phase phase;
+        private final long start;
+        private final PhaseEvent event;
+
+        private Timer(Phase phase) {
+            this.phase = phase;
+            this.event = new PhaseEvent();
+            this.event.begin();
+            this.start = System.nanoTime();
+        }
+
+        public void stop() {
+            phases[phase.ordinal()].add(System.nanoTime() - start);
+            event.phase = phase.name();
+            event.commit();
+        }
+    }
+
+    private static final class PhaseTimes {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+        PhaseTimes() {
+            for (int i = 0; i < BUCKETS; i++) {
+                histogram[i] = new LongAdder();
+            }
+        }
+
+        void add(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            long micros = nanos / 1000;
+            int bucket = micros == 0 ? 0 : 64 - Long.numberOfLeadingZeros(micros);
+            histogram[Math.min(bucket, BUCKETS - 1)].increment();
+        }
+
+        void appendJson(StringBuilder json) {
+            json.append("{\"count\":").append(count.sum());
+            json.append(",\"totalMs\":").append(String.format(Locale.ROOT, "%.3f", totalNanos.sum() / 1e6));
+            json.append(",\"maxMs\":").append(String.format(Locale.ROOT, "%.3f", maxNanos.get() / 1e6));
+            json.append(",\"histogramUs\":{");
+            boolean first = true;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                long bucketCount = histogram[bucket].sum();
+                if (bucketCount > 0) {
+                    json.append(first ? "" : ",").append('"').append(1L << bucket).append("\":").append(bucketCount);
+                    first = false;
+                }
+            }
+            json.append("}}");
+        }
+    }
+
+    @Name("dev.mjuarez.SolverPhase")
+    @Label("Solver Phase")
+    @Category("VRP Solver")
+    @StackTrace(false)
+    static final class PhaseEvent extends Event {
+        @Label("Phase")
+        String phase;
+    }
+
+    @Name("dev.mjuarez.NewBestSolution")
+    @Label("New Best Solution")
+    @Category("VRP Solver")
+    @StackTrace(false)
+    static final class ImprovementEvent extends Event {
+        @Label("Cost")
+        double cost;
+
+        @Label("Drivers")
+        int drivers;
+
+        @Label("Restart")
+        long restart;
+    }
+}
@@ -0,0 +1,79 @@
+package dev.mjuarez.challenge;
+
+/**
+ * When to stop solving: at the deadline at the latest, and earlier if the best solution gets to the target cost, if the
+ * best solution stops improving for a while, or if it's cancelled from the outside.
+ * It's shared by every worker of a solve, so it's thread-safe, and cheap enough to check in between moves.
+ */
+public final class Termination {
+    private final long start;
+    private final long deadline;
+    private final double targetCost;
+    private final long maxStallMs;
+
+    private volatile boolean cancelled;
+    private volatile boolean targetReached;
+    // Zero until the first solution is found, the stall time only starts counting from there
+    private volatile long lastImprovement;
+
+    public Termination(long maxRuntimeMs) {
+        this(maxRuntimeMs, 0, 0);
+    }
+
+    /**
+     * @param targetCost stop as soon as a solution is at or below this cost, or zero to never stop early for cost
+     * @param maxStallMs stop after this long without a better solution, or zero to never stop early for that
+     */
+    public Termination(long maxRuntimeMs, double targetCost, long maxStallMs) {
+        this.start = System.currentTimeMillis();
+        this.deadline = start + maxRuntimeMs;
+        this.targetCost = targetCost;
+        this.maxStallMs = maxStallMs;
+    }
+
+    public boolean isReached() {
+        if (cancelled || targetReached) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        long improvement = lastImprovement;
+        return now >= deadline || (maxStallMs > 0 && improvement > 0 && now - improvement >= maxStallMs);
+    }
+
+    /**
+     * Stops the solve as soon as every worker notices, which is in between moves.  The best solution so far is still returned.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    void onImprovement(double cost) {
+        lastImprovement = System.currentTimeMillis();
+        if (targetCost > 0 && cost <= targetCost) {
+            targetReached = true;
+        }
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * When the solve ends if the best solution doesn't improve again: the deadline, or the end of the stall time after
+     * the last improvement, whichever comes first.  It moves later with every improvement, so schedules based on it cool
+     * down as a stall gets close and warm back up after an improvement.  Reaching the target cost can't be foreseen, so
+     * it isn't taken into account.
+     */
+    public long getExpectedEnd() {
+        long improvement = lastImprovement;
+        return maxStallMs > 0 && improvement > 0 ? Math.min(deadline, improvement + maxStallMs) : deadline;
+    }
+}
@@ -0,0 +1,16 @@
+package dev.mjuarez.util;
+
+import java.util.BitSet;
+
+/**
+ * Drive times, plus the pickups worth going to right after every dropoff, which is what the route construction walks.
+ * DistanceModel has an edge from every dropoff to every other pickup, SparseDistanceModel only to the k nearest ones.
+ * Either way, the drive time in between any two loads is still available, so routes can be evaluated on both.
+ */
+public interface CandidateGraph extends DriveTimes {
+    /**
+     * Stores the loads that can be picked up right after the dropoff of the given load, skipping the removed ones and
+     * anything rejected by the filter, along with their drive times, sorted by ascending load.  Returns how many there are.
+     */
+    int collectCandidates(int from, BitSet removed, PickupGrid.Filter filter, int[] loads, double[] driveTimes);
+}
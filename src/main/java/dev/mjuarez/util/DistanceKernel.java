@@ -0,0 +1,42 @@
+package dev.mjuarez.util;
+
+/**
+ * Computes a whole row of drive times at once, from one point to every point in a pair of coordinate arrays.
+ * The default kernel is a plain loop over calculateTimeInMinutes.  When the JVM is started with
+ * --add-modules jdk.incubator.vector, a SIMD kernel is used instead, which does the exact same operations (subtract,
+ * multiply, add, square root, all of them correctly rounded and without fused multiply-add), so both return the same
+ * bits for every input.
+ */
+interface DistanceKernel {
+
+    String VECTOR_MODULE = "jdk.incubator.vector";
+    String VECTOR_KERNEL = "dev.mjuarez.util.VectorDistanceKernel";
+
+    /**
+     * Writes the drive time from (fromX, fromY) to (toX[i], toY[i]) into row[offset + i], for every i < size
+     */
+    void row(double fromX, double fromY, double[] toX, double[] toY, int size, double[] row, int offset);
+
+    static DistanceKernel scalar() {
+        return (fromX, fromY, toX, toY, size, row, offset) -> {
+            for (int i = 0; i < size; i++) {
+                row[offset + i] = CalculationsUtil.calculateTimeInMinutes(fromX, fromY, toX[i], toY[i]);
+            }
+        };
+    }
+
+    /**
+     * The SIMD kernel if the incubator module is available, or the scalar one otherwise.  The SIMD kernel is only ever
+     * loaded by name, so that nothing else needs the incubator module to be loaded.
+     */
+    static DistanceKernel create() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                return (DistanceKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Fall back to the scalar kernel, it returns the same results, only slower
+            }
+        }
+        return scalar();
+    }
+}
@@ -0,0 +1,80 @@
+package dev.mjuarez.util;
+
+import java.util.BitSet;
+
+/**
+ * Immutable, precomputed drive times between every pair of loads, indexed by the position of the load in the array.
+ * This is built once per problem and shared read-only between every restart, so it's safe to use from multiple threads.
+ * Takes 8 * n^2 bytes, see SparseDistanceModel for problems where that doesn't fit in the heap.
+ */
+public final class DistanceModel implements CandidateGraph {
+    // Largest n where the n^2 matrix still fits in a single array, which is capped a little below Integer.MAX_VALUE
+    public static final int MAX_LOADS = (int) Math.sqrt(Integer.MAX_VALUE - 8);
+
+    private final int numOfLoads;
+
+    // Flat row-major array, where [from * numOfLoads + to] is the time from the dropoff of "from" to the pickup of "to"
+    private final double[] dropoffToPickup;
+    private final double[] depotToPickup;
+    private final double[] pickupToDropoff;
+    private final double[] dropoffToDepot;
+
+    public DistanceModel(LoadSet loads) {
+        this.numOfLoads = loads.getNumOfLoads();
+        if (numOfLoads > MAX_LOADS) {
+            throw new IllegalArgumentException(String.format("Too many loads for the full distance matrix, use --sparse instead [%d]", numOfLoads));
+        }
+        this.dropoffToPickup = new double[numOfLoads * numOfLoads];
+        this.depotToPickup = new double[numOfLoads];
+        this.pickupToDropoff = new double[numOfLoads];
+        this.dropoffToDepot = new double[numOfLoads];
+
+        for (int i = 0; i < numOfLoads; i++) {
+            depotToPickup[i] = loads.depotToPickup(i);
+            pickupToDropoff[i] = loads.pickupToDropoff(i);
+            dropoffToDepot[i] = loads.dropoffToDepot(i);
+            loads.dropoffToPickupRow(i, dropoffToPickup, i * numOfLoads);
+        }
+    }
+
+    @Override
+    public int getNumOfLoads() {
+        return numOfLoads;
+    }
+
+    @Override
+    public double dropoffToPickup(int from, int to) {
+        return dropoffToPickup[from * numOfLoads + to];
+    }
+
+    /**
+     * Every load that isn't removed is a candidate, with the loads that are left found a word of the BitSet at a time
+     */
+    @Override
+    public int collectCandidates(int from, BitSet removed, PickupGrid.Filter filter, int[] loads, double[] driveTimes) {
+        int count = 0;
+        int row = from * numOfLoads;
+        for (int load = removed.nextClearBit(0); load < numOfLoads; load = removed.nextClearBit(load + 1)) {
+            if (load != from && filter.accept(load)) {
+                loads[count] = load;
+                driveTimes[count++] = dropoffToPickup[row + load];
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public double depotToPickup(int load) {
+        return depotToPickup[load];
+    }
+
+    @Override
+    public double pickupToDropoff(int load) {
+        return pickupToDropoff[load];
+    }
+
+    @Override
+    public double dropoffToDepot(int load) {
+        return dropoffToDepot[load];
+    }
+}
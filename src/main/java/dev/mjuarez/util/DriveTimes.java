@@ -0,0 +1,17 @@
+package dev.mjuarez.util;
+
+/**
+ * Drive times in between the points of a problem, with loads identified by their position in the LoadSet.
+ * DistanceModel has every one of them precomputed, LoadSet calculates them from the coordinates when asked.
+ */
+public interface DriveTimes {
+    int getNumOfLoads();
+
+    double dropoffToPickup(int from, int to);
+
+    double depotToPickup(int load);
+
+    double pickupToDropoff(int load);
+
+    double dropoffToDepot(int load);
+}
@@ -0,0 +1,177 @@
+package dev.mjuarez.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON parser, just enough for the requests of the solver server, so the jar can stay free of dependencies.
+ * Objects are parsed into a Map (keeping the order of the keys), arrays into a List, numbers into a Double, and
+ * true/false/null into their Java counterparts.
+ */
+public final class Json {
+    // Deeply nested input is always a mistake for the requests we take, and it would overflow the stack otherwise
+    private static final int MAX_DEPTH = 64;
+
+    private final String text;
+    private int position;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    public static Object parse(String text) {
+        Json json = new Json(text);
+        Object value = json.parseValue(0);
+        json.skipWhitespace();
+        if (json.position != text.length()) {
+            throw json.malformed("Unexpected content after the end of the value");
+        }
+        return value;
+    }
+
+    private Object parseValue(int depth) {
+        if (depth > MAX_DEPTH) {
+            throw malformed("Too deeply nested");
+        }
+        skipWhitespace();
+        if (position == text.length()) {
+            throw malformed("Unexpected end of input");
+        }
+        char c = text.charAt(position);
+        return switch (c) {
+            case '{' -> parseObject(depth);
+            case '[' -> parseArray(depth);
+            case '"' -> parseString();
+            case 't' -> parseLiteral("true", Boolean.TRUE);
+            case 'f' -> parseLiteral("false", Boolean.FALSE);
+            case 'n' -> parseLiteral("null", null);
+            default -> parseNumber();
+        };
+    }
+
+    private Map<String, Object> parseObject(int depth) {
+        Map<String, Object> object = new LinkedHashMap<>();
+        position++;
+        skipWhitespace();
+        if (consume('}')) {
+            return object;
+        }
+        do {
+            skipWhitespace();
+            if (position == text.length() || text.charAt(position) != '"') {
+                throw malformed("Expected a key");
+            }
+            String key = parseString();
+            skipWhitespace();
+            expect(':');
+            object.put(key, parseValue(depth + 1));
+            skipWhitespace();
+        } while (consume(','));
+        expect('}');
+        return object;
+    }
+
+    private List<Object> parseArray(int depth) {
+        List<Object> array = new ArrayList<>();
+        position++;
+        skipWhitespace();
+        if (consume(']')) {
+            return array;
+        }
+        do {
+            array.add(parseValue(depth + 1));
+            skipWhitespace();
+        } while (consume(','));
+        expect(']');
+        return array;
+    }
+
+    private String parseString() {
+        position++;
+        StringBuilder builder = new StringBuilder();
+        while (position < text.length()) {
+            char c = text.charAt(position++);
+            if (c == '"') {
+                return builder.toString();
+            }
+            if (c != '\\') {
+                builder.append(c);
+                continue;
+            }
+            if (position == text.length()) {
+                break;
+            }
+            char escaped = text.charAt(position++);
+            switch (escaped) {
+                case '"', '\\', '/' -> builder.append(escaped);
+                case 'b' -> builder.append('\b');
+                case 'f' -> builder.append('\f');
+                case 'n' -> builder.append('\n');
+                case 'r' -> builder.append('\r');
+                case 't' -> builder.append('\t');
+                case 'u' -> {
+                    if (position + 4 > text.length()) {
+                        throw malformed("Incomplete unicode escape");
+                    }
+                    try {
+                        builder.append((char) Integer.parseInt(text, position, position + 4, 16));
+                    } catch (NumberFormatException e) {
+                        throw malformed("Invalid unicode escape");
+                    }
+                    position += 4;
+                }
+                default -> throw malformed("Invalid escape");
+            }
+        }
+        throw malformed("Unterminated string");
+    }
+
+    private Object parseLiteral(String literal, Object value) {
+        if (!text.startsWith(literal, position)) {
+            throw malformed("Unexpected value");
+        }
+        position += literal.length();
+        return value;
+    }
+
+    private Double parseNumber() {
+        int start = position;
+        while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+            position++;
+        }
+        if (start == position) {
+            throw malformed("Unexpected character");
+        }
+        try {
+            return Double.parseDouble(text.substring(start, position));
+        } catch (NumberFormatException e) {
+            throw malformed("Invalid number");
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private boolean consume(char expected) {
+        if (position < text.length() && text.charAt(position) == expected) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char expected) {
+        if (!consume(expected)) {
+            throw malformed(String.format("Expected '%s'", expected));
+        }
+    }
+
+    private IllegalArgumentException malformed(String reason) {
+        return new IllegalArgumentException(String.format("Malformed JSON at position %d: %s", position, reason));
+    }
+}
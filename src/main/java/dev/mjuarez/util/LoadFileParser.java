@@ -0,0 +1,337 @@
+package dev.mjuarez.util;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Streaming parser for load files, which decodes ids and coordinates straight from the bytes into a LoadSet, without
+ * creating any intermediate Strings.  Sample input:
+ * loadNumber pickup dropoff
+ * 1 (-9.100071078494038,-48.89301103772511) (-116.78442279683607,76.80147820713637)
+ * Blank lines and lines that start with a letter (headers) are skipped, wherever they are.
+ * Doubles are decoded exactly, with the same result as Double.parseDouble: using Clinger's fast path when both the digits
+ * and the power of ten fit in a double, the Eisel-Lemire algorithm otherwise, and Double.parseDouble itself for whatever
+ * is left (more than 19 digits, huge exponents, or values too close to halfway in between two doubles).
+ */
+public final class LoadFileParser {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // Rough length of a line, only used to size the LoadSet up front when the file size is known
+    private static final int TYPICAL_LINE_LENGTH = 80;
+
+    private static final int MAX_DIGITS = 19;
+    private static final int MAX_EXACT_POWER = 22;
+    private static final double[] EXACT_POWERS_OF_TEN = new double[MAX_EXACT_POWER + 1];
+
+    // Truncated 128 bit mantissas of the powers of five in between SMALLEST_POWER and LARGEST_POWER, normalized so that
+    // the top bit is always set.  Coordinates never get close to these limits, anything outside goes to the fallback.
+    private static final int SMALLEST_POWER = -64;
+    private static final int LARGEST_POWER = 64;
+    private static final long[] POWER_HIGH = new long[LARGEST_POWER - SMALLEST_POWER + 1];
+    private static final long[] POWER_LOW = new long[LARGEST_POWER - SMALLEST_POWER + 1];
+
+    static {
+        EXACT_POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i <= MAX_EXACT_POWER; i++) {
+            EXACT_POWERS_OF_TEN[i] = EXACT_POWERS_OF_TEN[i - 1] * 10;
+        }
+
+        for (int power = SMALLEST_POWER; power <= LARGEST_POWER; power++) {
+            BigInteger mantissa;
+            if (power < 0) {
+                // Reciprocal with as much precision as fits, plus one, same as the reference tables of the algorithm
+                BigInteger powerOfFive = BigInteger.valueOf(5).pow(-power);
+                int bits = powerOfFive.bitLength();
+                int shift = power >= -27 ? bits + 127 : 2 * bits + 128;
+                mantissa = BigInteger.ONE.shiftLeft(shift).divide(powerOfFive).add(BigInteger.ONE);
+            } else {
+                mantissa = BigInteger.valueOf(5).pow(power);
+                mantissa = mantissa.shiftLeft(Math.max(0, 128 - mantissa.bitLength()));
+            }
+            mantissa = mantissa.shiftRight(Math.max(0, mantissa.bitLength() - 128));
+            POWER_HIGH[power - SMALLEST_POWER] = mantissa.shiftRight(64).longValue();
+            POWER_LOW[power - SMALLEST_POWER] = mantissa.longValue();
+        }
+    }
+
+    private final ReadableByteChannel channel;
+    private byte[] bytes = new byte[BUFFER_SIZE];
+    private int limit;
+    private boolean endOfInput;
+
+    // Bounds of the line being parsed, and the position of the next byte to look at inside of it
+    private int lineStart;
+    private int lineEnd;
+    private int nextLineStart;
+    private int position;
+    private long lineNumber;
+
+    private LoadFileParser(ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    public static LoadSet parse(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long expectedLoads = channel.size() / TYPICAL_LINE_LENGTH + 1;
+            return new LoadFileParser(channel).parseLoads((int) Math.min(expectedLoads, Integer.MAX_VALUE - 8));
+        }
+    }
+
+    /**
+     * Parses every load from the channel until the end of the input, the channel is left open
+     */
+    public static LoadSet parse(ReadableByteChannel channel) throws IOException {
+        return new LoadFileParser(channel).parseLoads(BUFFER_SIZE / TYPICAL_LINE_LENGTH);
+    }
+
+    private LoadSet parseLoads(int expectedLoads) throws IOException {
+        LoadSet loads = new LoadSet(expectedLoads);
+        while (nextLine()) {
+            skipWhitespace();
+            if (position == lineEnd || isLetter(bytes[position])) {
+                continue;
+            }
+            int id = parseInt();
+            skipWhitespace();
+            double pickupX = parseCoordinate('(');
+            double pickupY = parseCoordinate(',');
+            expect(')');
+            skipWhitespace();
+            double dropoffX = parseCoordinate('(');
+            double dropoffY = parseCoordinate(',');
+            expect(')');
+            skipWhitespace();
+            if (position != lineEnd) {
+                throw malformed();
+            }
+            loads.add(id, pickupX, pickupY, dropoffX, dropoffY);
+        }
+        return loads;
+    }
+
+    /**
+     * Moves on to the next line, reading more input if it's not all in the buffer yet.  Returns false at the end of input.
+     */
+    private boolean nextLine() throws IOException {
+        int start = nextLineStart;
+        int searchFrom = start;
+        while (true) {
+            for (int i = searchFrom; i < limit; i++) {
+                if (bytes[i] == '\n') {
+                    nextLineStart = i + 1;
+                    return startLine(start, i);
+                }
+            }
+            if (endOfInput) {
+                nextLineStart = limit;
+                return start < limit && startLine(start, limit);
+            }
+
+            // The line continues past the end of the buffer, move it to the front and read some more
+            int length = limit - start;
+            if (start > 0) {
+                System.arraycopy(bytes, start, bytes, 0, length);
+            } else if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            start = 0;
+            limit = length;
+            searchFrom = length;
+            int read = channel.read(ByteBuffer.wrap(bytes, limit, bytes.length - limit));
+            if (read < 0) {
+                endOfInput = true;
+            } else {
+                limit += read;
+            }
+        }
+    }
+
+    private boolean startLine(int start, int end) {
+        lineNumber++;
+        lineStart = start;
+        lineEnd = end;
+        position = start;
+        // Ignore the carriage return of Windows line endings
+        if (lineEnd > lineStart && bytes[lineEnd - 1] == '\r') {
+            lineEnd--;
+        }
+        return true;
+    }
+
+    private void skipWhitespace() {
+        while (position < lineEnd && (bytes[position] == ' ' || bytes[position] == '\t')) {
+            position++;
+        }
+    }
+
+    private void expect(char expected) {
+        skipWhitespace();
+        if (position == lineEnd || bytes[position] != expected) {
+            throw malformed();
+        }
+        position++;
+    }
+
+    private double parseCoordinate(char opening) {
+        expect(opening);
+        skipWhitespace();
+        return parseDouble();
+    }
+
+    private int parseInt() {
+        int start = position;
+        long value = 0;
+        while (position < lineEnd && isDigit(bytes[position]) && value <= Integer.MAX_VALUE) {
+            value = value * 10 + (bytes[position++] - '0');
+        }
+        if (position == start || value > Integer.MAX_VALUE) {
+            throw malformed();
+        }
+        return (int) value;
+    }
+
+    private double parseDouble() {
+        int start = position;
+        boolean negative = false;
+        if (position < lineEnd && (bytes[position] == '-' || bytes[position] == '+')) {
+            negative = bytes[position++] == '-';
+        }
+
+        long significand = 0;
+        int digits = 0;
+        int power = 0;
+        boolean anyDigit = false;
+        boolean truncated = false;
+        boolean fraction = false;
+        for (; position < lineEnd; position++) {
+            byte b = bytes[position];
+            if (isDigit(b)) {
+                anyDigit = true;
+                if (digits < MAX_DIGITS) {
+                    significand = significand * 10 + (b - '0');
+                    // Leading zeros are not significant
+                    if (significand != 0) {
+                        digits++;
+                    }
+                    if (fraction) {
+                        power--;
+                    }
+                } else {
+                    truncated = true;
+                }
+            } else if (b == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+        }
+        if (!anyDigit) {
+            throw malformed();
+        }
+
+        if (position < lineEnd && (bytes[position] == 'e' || bytes[position] == 'E')) {
+            position++;
+            boolean negativeExponent = false;
+            if (position < lineEnd && (bytes[position] == '-' || bytes[position] == '+')) {
+                negativeExponent = bytes[position++] == '-';
+            }
+            int exponentStart = position;
+            int exponent = 0;
+            while (position < lineEnd && isDigit(bytes[position])) {
+                // Anything this big is out of range either way, so there's no need to keep counting
+                exponent = Math.min(exponent * 10 + (bytes[position++] - '0'), 100_000);
+            }
+            if (position == exponentStart) {
+                throw malformed();
+            }
+            power += negativeExponent ? -exponent : exponent;
+        }
+
+        if (!truncated) {
+            double value = toDouble(significand, power);
+            if (!Double.isNaN(value)) {
+                return negative ? -value : value;
+            }
+        }
+        return Double.parseDouble(new String(bytes, start, position - start, StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Exact value of significand * 10^power, where the significand is unsigned (19 digits don't always fit in a long), or NaN if it can't be worked out without the slow path
+     */
+    static double toDouble(long significand, int power) {
+        if (significand == 0) {
+            return 0;
+        }
+
+        // Clinger's fast path: both numbers are exact doubles, so a single operation rounds correctly
+        if (Long.compareUnsigned(significand, 1L << 53) <= 0 && power >= -MAX_EXACT_POWER && power <= MAX_EXACT_POWER) {
+            return power < 0 ? significand / EXACT_POWERS_OF_TEN[-power] : significand * EXACT_POWERS_OF_TEN[power];
+        }
+        if (power < SMALLEST_POWER || power > LARGEST_POWER) {
+            return Double.NaN;
+        }
+
+        // Eisel-Lemire: multiply by the 128 bit mantissa of the power of ten, and check that the truncated product is
+        // still enough to tell which way to round
+        int lz = Long.numberOfLeadingZeros(significand);
+        long shifted = significand << lz;
+        long high = POWER_HIGH[power - SMALLEST_POWER];
+        long upper = Math.unsignedMultiplyHigh(shifted, high);
+        long lower = shifted * high;
+        if ((upper & 0x1FF) == 0x1FF && Long.compareUnsigned(lower + shifted, lower) < 0) {
+            long low = POWER_LOW[power - SMALLEST_POWER];
+            long productLow = shifted * low;
+            long productMiddle = lower + Math.unsignedMultiplyHigh(shifted, low);
+            if (Long.compareUnsigned(productMiddle, lower) < 0) {
+                upper++;
+            }
+            if (productMiddle + 1 == 0 && (upper & 0x1FF) == 0x1FF && Long.compareUnsigned(productLow + shifted, productLow) < 0) {
+                return Double.NaN;
+            }
+            lower = productMiddle;
+        }
+
+        long upperBit = upper >>> 63;
+        long mantissa = upper >>> (upperBit + 9);
+        lz += (int) (1 ^ upperBit);
+        if (lower == 0 && (upper & 0x1FF) == 0 && (mantissa & 3) == 1) {
+            // Could be exactly halfway in between two doubles
+            return Double.NaN;
+        }
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if (mantissa >= (1L << 53)) {
+            mantissa = 1L << 52;
+            lz--;
+        }
+        mantissa &= ~(1L << 52);
+
+        // floor(power * log2(10)), plus the bias and the 64 bits of the significand
+        long exponent = ((217706L * power) >> 16) + 1023 + 64 - lz;
+        if (exponent < 1 || exponent > 2046) {
+            return Double.NaN;
+        }
+        return Double.longBitsToDouble(mantissa | exponent << 52);
+    }
+
+    private IllegalArgumentException malformed() {
+        return new IllegalArgumentException(String.format("Malformed load in line %d [%s]", lineNumber,
+                new String(bytes, lineStart, lineEnd - lineStart, StandardCharsets.US_ASCII)));
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isLetter(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z');
+    }
+}
@@ -0,0 +1,181 @@
+package dev.mjuarez.util;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+
+/**
+ * Splits the loads of a problem into geographic partitions that can be solved on their own.  Every load is placed at
+ * the middle point in between its pickup and its dropoff.
+ * Partitions are arrays of load positions, sorted by the angle of their center around the depot, so that partitions
+ * next to each other in the result are also next to each other on the map, and the last one is next to the first one.
+ */
+public final class LoadPartitioner {
+    private static final int MAX_K_MEANS_ITERATIONS = 50;
+
+    private LoadPartitioner() {
+    }
+
+    /**
+     * Sorts the loads by their polar angle around the depot, and cuts them into partitions of the same size
+     */
+    public static int[][] sweep(LoadSet loads, int partitions) {
+        int numOfLoads = loads.getNumOfLoads();
+        partitions = Math.max(1, Math.min(partitions, numOfLoads));
+        double[] angles = new double[numOfLoads];
+        for (int i = 0; i < numOfLoads; i++) {
+            angles[i] = angle(centerX(loads, i), centerY(loads, i));
+        }
+        int[] order = sortedBy(angles);
+
+        int[][] result = new int[partitions][];
+        for (int p = 0; p < partitions; p++) {
+            int from = (int) ((long) numOfLoads * p / partitions);
+            int to = (int) ((long) numOfLoads * (p + 1) / partitions);
+            result[p] = Arrays.copyOfRange(order, from, to);
+        }
+        return result;
+    }
+
+    /**
+     * Groups the loads into clusters with k-means, starting from centroids picked with k-means++, so that every
+     * partition is as compact as possible.  Clusters can end up with different sizes, and empty ones are left out.
+     */
+    public static int[][] kMeans(LoadSet loads, int partitions, long seed) {
+        int numOfLoads = loads.getNumOfLoads();
+        int k = Math.max(1, Math.min(partitions, numOfLoads));
+        double[] x = new double[numOfLoads];
+        double[] y = new double[numOfLoads];
+        for (int i = 0; i < numOfLoads; i++) {
+            x[i] = centerX(loads, i);
+            y[i] = centerY(loads, i);
+        }
+        if (numOfLoads == 0) {
+            return new int[0][];
+        }
+
+        // k-means++: every next centroid is a load picked with probability proportional to its squared distance to the
+        // nearest centroid so far
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] centroidX = new double[k];
+        double[] centroidY = new double[k];
+        double[] nearest = new double[numOfLoads];
+        Arrays.fill(nearest, Double.MAX_VALUE);
+        int first = random.nextInt(numOfLoads);
+        centroidX[0] = x[first];
+        centroidY[0] = y[first];
+        for (int c = 1; c < k; c++) {
+            double total = 0;
+            for (int i = 0; i < numOfLoads; i++) {
+                nearest[i] = Math.min(nearest[i], squaredDistance(x[i], y[i], centroidX[c - 1], centroidY[c - 1]));
+                total += nearest[i];
+            }
+            double target = random.nextDouble() * total;
+            int picked = 0;
+            for (double sum = nearest[0]; sum < target && picked < numOfLoads - 1; sum += nearest[++picked]) {
+            }
+            centroidX[c] = x[picked];
+            centroidY[c] = y[picked];
+        }
+
+        // Lloyd's iterations, until no load changes its cluster
+        int[] cluster = new int[numOfLoads];
+        Arrays.fill(cluster, -1);
+        int[] sizes = new int[k];
+        for (int iteration = 0; iteration < MAX_K_MEANS_ITERATIONS; iteration++) {
+            boolean changed = false;
+            for (int i = 0; i < numOfLoads; i++) {
+                int best = 0;
+                double bestDistance = Double.MAX_VALUE;
+                for (int c = 0; c < k; c++) {
+                    double distance = squaredDistance(x[i], y[i], centroidX[c], centroidY[c]);
+                    if (distance < bestDistance) {
+                        best = c;
+                        bestDistance = distance;
+                    }
+                }
+                changed |= cluster[i] != best;
+                cluster[i] = best;
+            }
+            if (!changed) {
+                break;
+            }
+
+            double[] sumX = new double[k];
+            double[] sumY = new double[k];
+            Arrays.fill(sizes, 0);
+            for (int i = 0; i < numOfLoads; i++) {
+                sumX[cluster[i]] += x[i];
+                sumY[cluster[i]] += y[i];
+                sizes[cluster[i]]++;
+            }
+            for (int c = 0; c < k; c++) {
+                // An empty cluster keeps its centroid, it may still pick up some loads on the next iteration
+                if (sizes[c] > 0) {
+                    centroidX[c] = sumX[c] / sizes[c];
+                    centroidY[c] = sumY[c] / sizes[c];
+                }
+            }
+        }
+
+        Arrays.fill(sizes, 0);
+        for (int i = 0; i < numOfLoads; i++) {
+            sizes[cluster[i]]++;
+        }
+        double[] angles = new double[k];
+        for (int c = 0; c < k; c++) {
+            // Empty clusters sort last, and are left out below
+            angles[c] = sizes[c] > 0 ? angle(centroidX[c], centroidY[c]) : Double.MAX_VALUE;
+        }
+        int[] order = sortedBy(angles);
+        int[] positionOf = new int[k];
+        int nonEmpty = 0;
+        for (int c : order) {
+            positionOf[c] = nonEmpty;
+            if (sizes[c] > 0) {
+                nonEmpty++;
+            }
+        }
+
+        int[][] result = new int[nonEmpty][];
+        for (int c = 0; c < k; c++) {
+            if (sizes[c] > 0) {
+                result[positionOf[c]] = new int[sizes[c]];
+            }
+        }
+        int[] filled = new int[nonEmpty];
+        for (int i = 0; i < numOfLoads; i++) {
+            int p = positionOf[cluster[i]];
+            result[p][filled[p]++] = i;
+        }
+        return result;
+    }
+
+    private static double centerX(LoadSet loads, int load) {
+        return (loads.getPickupX(load) + loads.getDropoffX(load)) / 2;
+    }
+
+    private static double centerY(LoadSet loads, int load) {
+        return (loads.getPickupY(load) + loads.getDropoffY(load)) / 2;
+    }
+
+    private static double angle(double x, double y) {
+        return Math.atan2(y - CalculationsUtil.DEPOT_Y, x - CalculationsUtil.DEPOT_X);
+    }
+
+    private static double squaredDistance(double x1, double y1, double x2, double y2) {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Positions of the keys, sorted by ascending key.  The sort is stable, so ties stay in their original order.
+     */
+    private static int[] sortedBy(double[] keys) {
+        Integer[] sorted = new Integer[keys.length];
+        Arrays.setAll(sorted, i -> i);
+        Arrays.sort(sorted, Comparator.comparingDouble(i -> keys[i]));
+        return Arrays.stream(sorted).mapToInt(Integer::intValue).toArray();
+    }
+}
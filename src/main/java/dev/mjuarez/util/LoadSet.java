@@ -0,0 +1,145 @@
+package dev.mjuarez.util;
+
+import java.util.Arrays;
+
+/**
+ * Columnar set of loads, one primitive array per field, indexed by the position of the load in the input file.
+ * The drive times that only depend on a single load (from the depot, pickup to dropoff and back to the depot) are
+ * calculated as loads are added, the ones in between loads are calculated from the coordinates every time they're asked
+ * for, which is the same result DistanceModel has precomputed.
+ * Loads are only ever appended while parsing, after that it is treated as read-only.
+ */
+public final class LoadSet implements DriveTimes {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final DistanceKernel DISTANCE_KERNEL = DistanceKernel.create();
+
+    private int size;
+    private int[] ids;
+    private double[] pickupX;
+    private double[] pickupY;
+    private double[] dropoffX;
+    private double[] dropoffY;
+    private double[] depotToPickup;
+    private double[] pickupToDropoff;
+    private double[] dropoffToDepot;
+
+    public LoadSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LoadSet(int capacity) {
+        capacity = Math.max(1, capacity);
+        this.ids = new int[capacity];
+        this.pickupX = new double[capacity];
+        this.pickupY = new double[capacity];
+        this.dropoffX = new double[capacity];
+        this.dropoffY = new double[capacity];
+        this.depotToPickup = new double[capacity];
+        this.pickupToDropoff = new double[capacity];
+        this.dropoffToDepot = new double[capacity];
+    }
+
+    public void add(int id, double pickupX, double pickupY, double dropoffX, double dropoffY) {
+        if (size == ids.length) {
+            int capacity = size + (size >> 1) + 1;
+            this.ids = Arrays.copyOf(ids, capacity);
+            this.pickupX = Arrays.copyOf(this.pickupX, capacity);
+            this.pickupY = Arrays.copyOf(this.pickupY, capacity);
+            this.dropoffX = Arrays.copyOf(this.dropoffX, capacity);
+            this.dropoffY = Arrays.copyOf(this.dropoffY, capacity);
+            this.depotToPickup = Arrays.copyOf(depotToPickup, capacity);
+            this.pickupToDropoff = Arrays.copyOf(pickupToDropoff, capacity);
+            this.dropoffToDepot = Arrays.copyOf(dropoffToDepot, capacity);
+        }
+        this.ids[size] = id;
+        this.pickupX[size] = pickupX;
+        this.pickupY[size] = pickupY;
+        this.dropoffX[size] = dropoffX;
+        this.dropoffY[size] = dropoffY;
+        this.depotToPickup[size] = CalculationsUtil.calculateTimeInMinutes(CalculationsUtil.DEPOT_X, CalculationsUtil.DEPOT_Y, pickupX, pickupY);
+        this.pickupToDropoff[size] = CalculationsUtil.calculateTimeInMinutes(pickupX, pickupY, dropoffX, dropoffY);
+        this.dropoffToDepot[size] = CalculationsUtil.calculateTimeInMinutes(dropoffX, dropoffY, CalculationsUtil.DEPOT_X, CalculationsUtil.DEPOT_Y);
+        size++;
+    }
+
+    /**
+     * Adds a copy of a load from another set, with the same id and coordinates
+     */
+    public void add(LoadSet from, int load) {
+        add(from.ids[load], from.pickupX[load], from.pickupY[load], from.dropoffX[load], from.dropoffY[load]);
+    }
+
+    /**
+     * Drive times from the dropoff of one load to the pickup of every load, written into row[offset] until
+     * row[offset + size - 1].  This is the inner loop of building the distance matrix, so it works on the arrays directly,
+     * with the SIMD kernel when it's available.
+     */
+    public void dropoffToPickupRow(int from, double[] row, int offset) {
+        DISTANCE_KERNEL.row(dropoffX[from], dropoffY[from], pickupX, pickupY, size, row, offset);
+    }
+
+    /**
+     * Whether a driver can do the load on its own, from the depot and back within the max drive time.  Without that,
+     * there's no solution at all.
+     */
+    public boolean isReachable(int load) {
+        return depotToPickup[load] + pickupToDropoff[load] + dropoffToDepot[load] < CalculationsUtil.MAX_DRIVE_TIME_MINUTES;
+    }
+
+    /**
+     * Throws if any of the loads isn't reachable (see isReachable).  Solvers check this before they start, since they
+     * can't find a solution otherwise.
+     */
+    public void checkReachable() {
+        for (int load = 0; load < size; load++) {
+            if (!isReachable(load)) {
+                throw new IllegalArgumentException(String.format("Load can't be done within the max drive time [%s]", ids[load]));
+            }
+        }
+    }
+
+    @Override
+    public int getNumOfLoads() {
+        return size;
+    }
+
+    public int getId(int load) {
+        return ids[load];
+    }
+
+    public double getPickupX(int load) {
+        return pickupX[load];
+    }
+
+    public double getPickupY(int load) {
+        return pickupY[load];
+    }
+
+    public double getDropoffX(int load) {
+        return dropoffX[load];
+    }
+
+    public double getDropoffY(int load) {
+        return dropoffY[load];
+    }
+
+    @Override
+    public double dropoffToPickup(int from, int to) {
+        return CalculationsUtil.calculateTimeInMinutes(dropoffX[from], dropoffY[from], pickupX[to], pickupY[to]);
+    }
+
+    @Override
+    public double depotToPickup(int load) {
+        return depotToPickup[load];
+    }
+
+    @Override
+    public double pickupToDropoff(int load) {
+        return pickupToDropoff[load];
+    }
+
+    @Override
+    public double dropoffToDepot(int load) {
+        return dropoffToDepot[load];
+    }
+}
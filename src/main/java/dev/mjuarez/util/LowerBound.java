@@ -0,0 +1,92 @@
+package dev.mjuarez.util;
+
+/**
+ * Cheap lower bounds on the drivers, minutes and cost of any solution of a problem.
+ * Every load has to be driven from its pickup to its dropoff, and something has to bring a driver to its pickup: either
+ * the depot, or the dropoff of another load, whichever is closest.  Those two legs add up to the mandatory minutes of
+ * the load.  On top of that, every route ends with a leg back to the depot, at least as long as the shortest one.
+ * Every route is within the max drive time, so that's also a lower bound on the drivers, and since the cost goes up
+ * with both, the cost of the fewest drivers is a lower bound on the cost.
+ * The same bound also works on a partial solution, with the routes built so far plus the loads that are still left, so
+ * a construction can be stopped as soon as it can't beat the best solution anymore.
+ */
+public final class LowerBound {
+    private final double[] mandatoryMinutes;
+    private final double minReturn;
+    private final double totalMandatoryMinutes;
+    private final int drivers;
+
+    public LowerBound(LoadSet loads) {
+        int numOfLoads = loads.getNumOfLoads();
+        this.mandatoryMinutes = new double[numOfLoads];
+        double minReturn = numOfLoads > 0 ? Double.MAX_VALUE : 0;
+        double total = 0;
+
+        // Dropoffs indexed as if they were pickups, with the pickups and dropoffs of every load swapped, so the grid
+        // finds the nearest dropoff to every pickup
+        LoadSet swapped = new LoadSet(numOfLoads);
+        for (int load = 0; load < numOfLoads; load++) {
+            swapped.add(loads.getId(load), loads.getDropoffX(load), loads.getDropoffY(load), loads.getPickupX(load), loads.getPickupY(load));
+        }
+        PickupGrid dropoffGrid = new PickupGrid(swapped);
+        int[] nearest = new int[1];
+        double[] squaredDistance = new double[1];
+        for (int load = 0; load < numOfLoads; load++) {
+            int self = load;
+            double minArrival = loads.depotToPickup(load);
+            if (dropoffGrid.findNearest(loads.getPickupX(load), loads.getPickupY(load), 1, from -> from != self, nearest, squaredDistance) > 0) {
+                minArrival = Math.min(minArrival, Math.sqrt(squaredDistance[0]));
+            }
+            mandatoryMinutes[load] = minArrival + loads.pickupToDropoff(load);
+            total += mandatoryMinutes[load];
+            minReturn = Math.min(minReturn, loads.dropoffToDepot(load));
+        }
+        this.minReturn = minReturn;
+        this.totalMandatoryMinutes = total;
+        this.drivers = minDrivers(total);
+    }
+
+    /**
+     * Fewest drivers that can drive the given mandatory minutes, given that every one of them also has to go back to
+     * the depot within the max drive time
+     */
+    private int minDrivers(double mandatoryMinutes) {
+        if (mandatoryMinutes <= 0) {
+            return 0;
+        }
+        return Math.max(1, (int) Math.ceil(mandatoryMinutes / (CalculationsUtil.MAX_DRIVE_TIME_MINUTES - minReturn)));
+    }
+
+    public int getDrivers() {
+        return drivers;
+    }
+
+    public double getMinutes() {
+        return totalMandatoryMinutes + drivers * minReturn;
+    }
+
+    public double getCost() {
+        return CalculationsUtil.calculateTotalCost(drivers, getMinutes());
+    }
+
+    public double getMandatoryMinutes(int load) {
+        return mandatoryMinutes[load];
+    }
+
+    /**
+     * Lower bound on the cost of any solution that keeps the routes built so far, and still has to do loads with the
+     * given mandatory minutes (see getMandatoryMinutes)
+     */
+    public double getCost(int routedDrivers, double routedMinutes, double remainingMandatoryMinutes) {
+        int remainingDrivers = minDrivers(remainingMandatoryMinutes);
+        return CalculationsUtil.calculateTotalCost(routedDrivers + remainingDrivers,
+                routedMinutes + remainingMandatoryMinutes + remainingDrivers * minReturn);
+    }
+
+    /**
+     * How far the cost could still be from optimal, as a fraction of the cost: 0 means it's optimal
+     */
+    public double gap(double cost) {
+        return cost > 0 ? Math.max(0, (cost - getCost()) / cost) : 0;
+    }
+}
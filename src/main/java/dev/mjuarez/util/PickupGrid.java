@@ -0,0 +1,150 @@
+package dev.mjuarez.util;
+
+/**
+ * Immutable uniform grid over the pickup points of every load, used to find the nearest pickups to a given point
+ * without scanning every load.  Loads are referenced by their position in the array, same as DistanceModel.
+ * Like DistanceModel, this is built once per problem and shared read-only between every restart.
+ */
+public final class PickupGrid {
+
+    public interface Filter {
+        boolean accept(int load);
+    }
+
+    // On average, this is how many pickups will end up in every cell
+    private static final int LOADS_PER_CELL = 2;
+
+    private final double minX;
+    private final double minY;
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+
+    // Compressed cells, the loads in cell c are cellLoads[cellStart[c]] until cellLoads[cellStart[c + 1] - 1]
+    private final int[] cellStart;
+    private final int[] cellLoads;
+    private final LoadSet loads;
+
+    public PickupGrid(LoadSet loads) {
+        this.loads = loads;
+        int numOfLoads = loads.getNumOfLoads();
+
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        double lowestX = Double.MAX_VALUE;
+        double lowestY = Double.MAX_VALUE;
+        for (int i = 0; i < numOfLoads; i++) {
+            lowestX = Math.min(lowestX, loads.getPickupX(i));
+            lowestY = Math.min(lowestY, loads.getPickupY(i));
+            maxX = Math.max(maxX, loads.getPickupX(i));
+            maxY = Math.max(maxY, loads.getPickupY(i));
+        }
+        if (numOfLoads == 0) {
+            lowestX = lowestY = maxX = maxY = 0;
+        }
+        this.minX = lowestX;
+        this.minY = lowestY;
+
+        // Square cells, sized so that each one holds a couple of pickups
+        double width = Math.max(maxX - minX, 1e-9);
+        double height = Math.max(maxY - minY, 1e-9);
+        int numOfCells = Math.max(1, numOfLoads / LOADS_PER_CELL);
+        this.cellSize = Math.max(Math.sqrt(width * height / numOfCells), Math.max(width, height) / numOfCells);
+        this.columns = (int) (width / cellSize) + 1;
+        this.rows = (int) (height / cellSize) + 1;
+
+        // Counting sort of the loads by cell
+        this.cellStart = new int[columns * rows + 1];
+        this.cellLoads = new int[numOfLoads];
+        int[] cellOfLoad = new int[numOfLoads];
+        for (int i = 0; i < numOfLoads; i++) {
+            cellOfLoad[i] = cell(column(loads.getPickupX(i)), row(loads.getPickupY(i)));
+            cellStart[cellOfLoad[i] + 1]++;
+        }
+        for (int c = 0; c < columns * rows; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        int[] next = new int[columns * rows];
+        for (int i = 0; i < numOfLoads; i++) {
+            cellLoads[cellStart[cellOfLoad[i]] + next[cellOfLoad[i]]++] = i;
+        }
+    }
+
+    /**
+     * Same as findNearest, using the dropoff point of the given load
+     */
+    public int findNearestToDropoff(int load, int k, Filter filter, int[] nearestLoads, double[] squaredDistances) {
+        return findNearest(loads.getDropoffX(load), loads.getDropoffY(load), k, filter, nearestLoads, squaredDistances);
+    }
+
+    /**
+     * Finds up to k of the pickups nearest to (x, y) that are accepted by the filter, and stores them in nearestLoads,
+     * sorted by ascending distance.  Returns how many were found.
+     */
+    public int findNearest(double x, double y, int k, Filter filter, int[] nearestLoads, double[] squaredDistances) {
+        if (k <= 0) {
+            return 0;
+        }
+        int centerColumn = column(x);
+        int centerRow = row(y);
+        int maxRing = Math.max(columns, rows);
+        int found = 0;
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            for (int r = centerRow - ring; r <= centerRow + ring; r++) {
+                if (r < 0 || r >= rows) {
+                    continue;
+                }
+                // Only the border of the ring, the inside was already visited by the previous rings
+                boolean borderRow = r == centerRow - ring || r == centerRow + ring;
+                int step = borderRow || ring == 0 ? 1 : 2 * ring;
+                for (int c = centerColumn - ring; c <= centerColumn + ring; c += step) {
+                    if (c < 0 || c >= columns) {
+                        continue;
+                    }
+                    int cell = cell(c, r);
+                    for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                        int load = cellLoads[i];
+                        double dx = loads.getPickupX(load) - x;
+                        double dy = loads.getPickupY(load) - y;
+                        double squaredDistance = dx * dx + dy * dy;
+                        if ((found < k || squaredDistance < squaredDistances[found - 1]) && filter.accept(load)) {
+                            found = insertSorted(load, squaredDistance, found, k, nearestLoads, squaredDistances);
+                        }
+                    }
+                }
+            }
+
+            // Anything in the next rings is at least this far away, so we can stop once we have k closer than that
+            double ringDistance = ring * cellSize;
+            if (found == k && squaredDistances[found - 1] <= ringDistance * ringDistance) {
+                break;
+            }
+        }
+        return found;
+    }
+
+    private static int insertSorted(int load, double squaredDistance, int found, int k, int[] nearestLoads, double[] squaredDistances) {
+        int position = Math.min(found, k - 1);
+        while (position > 0 && squaredDistances[position - 1] > squaredDistance) {
+            nearestLoads[position] = nearestLoads[position - 1];
+            squaredDistances[position] = squaredDistances[position - 1];
+            position--;
+        }
+        nearestLoads[position] = load;
+        squaredDistances[position] = squaredDistance;
+        return Math.min(found + 1, k);
+    }
+
+    private int column(double x) {
+        return Math.min(columns - 1, Math.max(0, (int) ((x - minX) / cellSize)));
+    }
+
+    private int row(double y) {
+        return Math.min(rows - 1, Math.max(0, (int) ((y - minY) / cellSize)));
+    }
+
+    private int cell(int column, int row) {
+        return row * columns + column;
+    }
+}
@@ -1,21 +1,245 @@
 package dev.mjuarez.util;
 
-import java.util.List;
+import java.util.Arrays;
 
-public class Route {
-    private List<Integer> path;
+/**
+ * Sequence of loads done by a single driver, by position of the load in the LoadSet, with the cached sums needed to
+ * evaluate moves and check the max drive time in constant time.
+ * Routes are changed in place by the improvement heuristics, which always work on their own copies: the routes of a
+ * Solution are never changed once it's built, since solutions are shared in between threads.
+ */
+public final class Route {
+    // Used to mark the depot when looking at the loads before and after a position
+    public static final int DEPOT = -1;
+
+    private final DriveTimes driveTimes;
+    private int[] loads;
+    private int size;
     private double cost;
 
-    public Route(List<Integer> path, double cost) {
-        this.path = path;
-        this.cost = cost;
+    // prefix[k] is the drive time from leaving the depot until the dropoff of loads[k]
+    // suffix[k] is the drive time from the pickup of loads[k] until getting back to the depot
+    private double[] prefix;
+    private double[] suffix;
+
+    // forwardLinks[k] is the sum of drive times from the dropoff of loads[t] to the pickup of loads[t + 1], for t < k
+    // reverseLinks[k] is the same, but in the opposite direction, from loads[t + 1] to loads[t]
+    private double[] forwardLinks;
+    private double[] reverseLinks;
+
+    public Route(DriveTimes driveTimes, int[] loads, int size) {
+        this.driveTimes = driveTimes;
+        this.loads = Arrays.copyOf(loads, Math.max(1, size));
+        this.size = size;
+        update();
+    }
+
+    public Route(Route other) {
+        this.driveTimes = other.driveTimes;
+        this.loads = other.loads.clone();
+        this.size = other.size;
+        update();
+    }
+
+    private Route(Route other, DriveTimes driveTimes, int[] newIndex) {
+        this.driveTimes = driveTimes;
+        this.loads = new int[Math.max(1, other.size)];
+        this.size = other.size;
+        for (int k = 0; k < size; k++) {
+            loads[k] = newIndex[other.loads[k]];
+        }
+        this.cost = other.cost;
+        this.prefix = other.prefix.clone();
+        this.suffix = other.suffix.clone();
+        this.forwardLinks = other.forwardLinks.clone();
+        this.reverseLinks = other.reverseLinks.clone();
+    }
+
+    /**
+     * Copy of this route where every load is moved to its position in another set of loads, newIndex[load], keeping
+     * the cost and every cached sum as they are.  Only valid if the loads themselves didn't change.
+     */
+    public Route renumber(DriveTimes driveTimes, int[] newIndex) {
+        return new Route(this, driveTimes, newIndex);
     }
 
-    public List<Integer> getPath() {
-        return path;
+    public int getSize() {
+        return size;
     }
 
+    public int getLoad(int position) {
+        return loads[position];
+    }
+
+    /**
+     * Total drive time of the route, from leaving the depot until getting back to it
+     */
     public double getCost() {
         return cost;
     }
+
+    /**
+     * Whether the route is still within the max drive time after a change of the given delta
+     */
+    public boolean isFeasible(double delta) {
+        return cost + delta < CalculationsUtil.MAX_DRIVE_TIME_MINUTES;
+    }
+
+    /**
+     * Returns the load at the given position, or DEPOT if the position is before the first or after the last load
+     */
+    public int loadAt(int position) {
+        return position < 0 || position >= size ? DEPOT : loads[position];
+    }
+
+    /**
+     * Drive time from leaving the depot until the dropoff of the load right before the given position
+     */
+    public double driveTimeBefore(int position) {
+        return position <= 0 ? 0 : prefix[Math.min(position, size) - 1];
+    }
+
+    /**
+     * Drive time from the pickup of the load at the given position until getting back to the depot
+     */
+    public double driveTimeFrom(int position) {
+        return position >= size ? 0 : suffix[Math.max(position, 0)];
+    }
+
+    /**
+     * Drive time from the dropoff of one load to the pickup of the next one, where either of them can be the depot
+     */
+    public double link(int from, int to) {
+        if (from == DEPOT) {
+            return to == DEPOT ? 0 : driveTimes.depotToPickup(to);
+        }
+        if (to == DEPOT) {
+            return driveTimes.dropoffToDepot(from);
+        }
+        return driveTimes.dropoffToPickup(from, to);
+    }
+
+    public double insertionDelta(int load, int position) {
+        int previous = loadAt(position - 1);
+        int next = loadAt(position);
+        return link(previous, load) + driveTimes.pickupToDropoff(load) + link(load, next) - link(previous, next);
+    }
+
+    public double removalDelta(int position) {
+        int previous = loadAt(position - 1);
+        int next = loadAt(position + 1);
+        int load = loads[position];
+        return link(previous, next) - link(previous, load) - driveTimes.pickupToDropoff(load) - link(load, next);
+    }
+
+    /**
+     * Change in cost of removing every load in between positions i and j (inclusive), where i <= j
+     */
+    public double segmentRemovalDelta(int i, int j) {
+        return driveTimeBefore(i) + link(loadAt(i - 1), loadAt(j + 1)) + driveTimeFrom(j + 1) - cost;
+    }
+
+    public double replacementDelta(int position, int load) {
+        int previous = loadAt(position - 1);
+        int next = loadAt(position + 1);
+        int current = loads[position];
+        return link(previous, load) + driveTimes.pickupToDropoff(load) + link(load, next)
+                - link(previous, current) - driveTimes.pickupToDropoff(current) - link(current, next);
+    }
+
+    /**
+     * Change in cost of exchanging the loads at positions i and j of this route, where i < j
+     */
+    public double swapDelta(int i, int j) {
+        if (j == i + 1) {
+            int previous = loadAt(i - 1);
+            int next = loadAt(j + 1);
+            // Both loads are still picked up and dropped off, only the links around and in between them change
+            return link(previous, loads[j]) + link(loads[j], loads[i]) + link(loads[i], next)
+                    - link(previous, loads[i]) - link(loads[i], loads[j]) - link(loads[j], next);
+        }
+        return replacementDelta(i, loads[j]) + replacementDelta(j, loads[i]);
+    }
+
+    /**
+     * Change in cost of reversing the order of the loads in between positions i and j (inclusive), where i < j
+     */
+    public double reversalDelta(int i, int j) {
+        int previous = loadAt(i - 1);
+        int next = loadAt(j + 1);
+        double removed = link(previous, loads[i]) + (forwardLinks[j] - forwardLinks[i]) + link(loads[j], next);
+        double added = link(previous, loads[j]) + (reverseLinks[j] - reverseLinks[i]) + link(loads[i], next);
+        return added - removed;
+    }
+
+    public void insert(int load, int position) {
+        if (size == loads.length) {
+            loads = Arrays.copyOf(loads, size * 2 + 1);
+        }
+        System.arraycopy(loads, position, loads, position + 1, size - position);
+        loads[position] = load;
+        size++;
+        update();
+    }
+
+    public void remove(int position) {
+        System.arraycopy(loads, position + 1, loads, position, size - position - 1);
+        size--;
+        update();
+    }
+
+    public void replace(int position, int load) {
+        loads[position] = load;
+        update();
+    }
+
+    public void swap(int i, int j) {
+        int load = loads[i];
+        loads[i] = loads[j];
+        loads[j] = load;
+        update();
+    }
+
+    public void reverse(int i, int j) {
+        for (; i < j; i++, j--) {
+            int load = loads[i];
+            loads[i] = loads[j];
+            loads[j] = load;
+        }
+        update();
+    }
+
+    /**
+     * Recalculates the cost and every cached sum from scratch, in the same order the route is driven
+     */
+    private void update() {
+        if (prefix == null || prefix.length < loads.length) {
+            prefix = new double[loads.length];
+            suffix = new double[loads.length];
+            forwardLinks = new double[loads.length];
+            reverseLinks = new double[loads.length];
+        }
+        cost = 0;
+        int previous = DEPOT;
+        for (int k = 0; k < size; k++) {
+            int load = loads[k];
+            cost += link(previous, load) + driveTimes.pickupToDropoff(load);
+            prefix[k] = cost;
+            if (k > 0) {
+                forwardLinks[k] = forwardLinks[k - 1] + link(previous, load);
+                reverseLinks[k] = reverseLinks[k - 1] + link(load, previous);
+            } else {
+                forwardLinks[k] = 0;
+                reverseLinks[k] = 0;
+            }
+            previous = load;
+        }
+        cost += link(previous, DEPOT);
+
+        double remaining = 0;
+        for (int k = size - 1; k >= 0; k--) {
+            remaining += driveTimes.pickupToDropoff(loads[k]) + link(loads[k], loadAt(k + 1));
+            suffix[k] = remaining;
+        }
+    }
 }
@@ -0,0 +1,235 @@
+package dev.mjuarez.util;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary snapshot of a problem, and optionally a solution for it, so that it can be reloaded exactly as it was,
+ * e.g. to warm start tomorrow's solve from today's routes.  Everything is little endian:
+ * - magic "VRPS" and a version byte
+ * - number of loads as a varint, then every load: its id as the zigzag varint of the difference with the previous id,
+ *   followed by its pickup x, y and dropoff x, y as raw doubles, so coordinates come back bit for bit
+ * - whether there is a solution, and if so its seed (8 bytes), its restart as a zigzag varint, the number of routes,
+ *   and every route as its size followed by the positions of its loads, all of them varints
+ * - CRC32 of everything before it
+ * Snapshots are written with a single FileChannel write, and read straight from a memory mapped file.
+ */
+public final class Snapshot {
+    private static final int MAGIC = 0x53505256; // "VRPS"
+    private static final byte VERSION = 1;
+    private static final int MAX_VARINT_BYTES = 10;
+
+    private final LoadSet loads;
+    private final Solution solution;
+
+    public Snapshot(LoadSet loads, Solution solution) {
+        this.loads = loads;
+        this.solution = solution;
+    }
+
+    public LoadSet getLoads() {
+        return loads;
+    }
+
+    /**
+     * Solution for the loads, or null if the snapshot only has the problem
+     */
+    public Solution getSolution() {
+        return solution;
+    }
+
+    /**
+     * Whether the file starts like a snapshot, as opposed to a problem in the text format
+     */
+    public static boolean isSnapshot(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the whole header is in, or the file ends
+            }
+            return !header.hasRemaining() && header.getInt(0) == MAGIC;
+        }
+    }
+
+    public void write(Path path) throws IOException {
+        int numOfLoads = loads.getNumOfLoads();
+        int numOfRoutes = solution != null ? solution.getRoutes().size() : 0;
+        long capacity = Integer.BYTES + 1 + MAX_VARINT_BYTES
+                + (long) numOfLoads * (MAX_VARINT_BYTES + 4 * Double.BYTES)
+                + 1 + Long.BYTES + 2L * MAX_VARINT_BYTES + (long) (numOfRoutes + numOfLoads) * MAX_VARINT_BYTES
+                + Integer.BYTES;
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format("Too many loads for a snapshot [%s]", numOfLoads));
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) capacity).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        putVarint(buffer, numOfLoads);
+        int previousId = 0;
+        for (int load = 0; load < numOfLoads; load++) {
+            putVarint(buffer, zigzag((long) loads.getId(load) - previousId));
+            previousId = loads.getId(load);
+            buffer.putDouble(loads.getPickupX(load));
+            buffer.putDouble(loads.getPickupY(load));
+            buffer.putDouble(loads.getDropoffX(load));
+            buffer.putDouble(loads.getDropoffY(load));
+        }
+        buffer.put((byte) (solution != null ? 1 : 0));
+        if (solution != null) {
+            buffer.putLong(solution.getSeed());
+            putVarint(buffer, zigzag(solution.getRestart()));
+            putVarint(buffer, numOfRoutes);
+            for (Route route : solution.getRoutes()) {
+                putVarint(buffer, route.getSize());
+                for (int k = 0; k < route.getSize(); k++) {
+                    putVarint(buffer, route.getLoad(k));
+                }
+            }
+        }
+        buffer.putInt(checksum(buffer, buffer.position()));
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    public static Snapshot read(Path path) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw malformed(path, "too large");
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.limit() < Integer.BYTES + 1 + Integer.BYTES || buffer.getInt(0) != MAGIC) {
+            throw malformed(path, "not a snapshot");
+        }
+        if (buffer.get(Integer.BYTES) != VERSION) {
+            throw malformed(path, String.format("unknown version [%d]", buffer.get(Integer.BYTES)));
+        }
+        int end = buffer.limit() - Integer.BYTES;
+        if (buffer.getInt(end) != checksum(buffer, end)) {
+            throw malformed(path, "checksum mismatch");
+        }
+
+        try {
+            buffer.position(Integer.BYTES + 1).limit(end);
+            int numOfLoads = getCount(buffer, path);
+            LoadSet loads = new LoadSet(numOfLoads);
+            long id = 0;
+            for (int load = 0; load < numOfLoads; load++) {
+                id += unzigzag(getVarint(buffer, path));
+                if (id != (int) id) {
+                    throw malformed(path, String.format("load id out of range [%s]", id));
+                }
+                loads.add((int) id, buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+            }
+
+            Solution solution = null;
+            if (buffer.get() != 0) {
+                long seed = buffer.getLong();
+                long restart = unzigzag(getVarint(buffer, path));
+                int numOfRoutes = getCount(buffer, path);
+                List<Route> routes = new ArrayList<>(numOfRoutes);
+
+                // Every load has to be in exactly one route, same as any other solution
+                boolean[] routed = new boolean[numOfLoads];
+                int numOfRouted = 0;
+                for (int r = 0; r < numOfRoutes; r++) {
+                    int size = getCount(buffer, path);
+                    if (size == 0) {
+                        throw malformed(path, String.format("route [%d] is empty", r));
+                    }
+                    int[] route = new int[size];
+                    for (int k = 0; k < size; k++) {
+                        long load = getVarint(buffer, path);
+                        if (load < 0 || load >= numOfLoads) {
+                            throw malformed(path, String.format("load out of range [%s]", load));
+                        }
+                        if (routed[(int) load]) {
+                            throw malformed(path, String.format("load in more than one route [%s]", loads.getId((int) load)));
+                        }
+                        routed[(int) load] = true;
+                        numOfRouted++;
+                        route[k] = (int) load;
+                    }
+                    routes.add(new Route(loads, route, size));
+                }
+                if (numOfRouted != numOfLoads) {
+                    throw malformed(path, String.format("[%d] loads missing from the solution", numOfLoads - numOfRouted));
+                }
+                solution = new Solution(routes).withOrigin(seed, restart);
+            }
+            if (buffer.hasRemaining()) {
+                throw malformed(path, String.format("[%d] unexpected bytes at the end", buffer.remaining()));
+            }
+            return new Snapshot(loads, solution);
+        } catch (BufferUnderflowException e) {
+            throw malformed(path, "truncated");
+        }
+    }
+
+    private static IllegalArgumentException malformed(Path path, String reason) {
+        return new IllegalArgumentException(String.format("Malformed snapshot [%s]: %s", path, reason));
+    }
+
+    private static int checksum(ByteBuffer buffer, int end) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(0).limit(end));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Number of loads, routes, or loads in a route, which can never be negative or more than what's left of the file
+     */
+    private static int getCount(ByteBuffer buffer, Path path) {
+        long count = getVarint(buffer, path);
+        if (count < 0 || count > buffer.remaining()) {
+            throw malformed(path, String.format("count out of range [%s]", count));
+        }
+        return (int) count;
+    }
+
+    private static void putVarint(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long getVarint(ByteBuffer buffer, Path path) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw malformed(path, "varint longer than 64 bits");
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
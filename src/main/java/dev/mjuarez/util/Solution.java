@@ -1,5 +1,6 @@
 package dev.mjuarez.util;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class Solution {
@@ -7,12 +8,44 @@ public class Solution {
     private int drivers;
     private double totalCost;
 
+    // Where the solution came from, so the search that built it can be run again
+    private long seed;
+    private long restart = -1;
+
     public Solution(List<Route> routes, double totalCost) {
         this.routes = routes;
         this.drivers = routes.size();
         this.totalCost = totalCost;
     }
 
+    /**
+     * Solution with the total cost calculated from the given routes
+     */
+    public Solution(List<Route> routes) {
+        this(routes, CalculationsUtil.calculateTotalCost(routes.size(), routes.stream().mapToDouble(Route::getCost).sum()));
+    }
+
+    /**
+     * Solution with copies of the given routes, so that they can keep changing without affecting it
+     */
+    public static Solution copyOf(List<Route> routes) {
+        List<Route> copies = new ArrayList<>(routes.size());
+        for (Route route : routes) {
+            copies.add(new Route(route));
+        }
+        return new Solution(copies);
+    }
+
+    /**
+     * Same solution, labeled with the seed of the solve and the restart that found it
+     */
+    public Solution withOrigin(long seed, long restart) {
+        Solution solution = new Solution(routes, totalCost);
+        solution.seed = seed;
+        solution.restart = restart;
+        return solution;
+    }
+
     public double getTotalCost() {
         return totalCost;
     }
@@ -20,4 +53,15 @@ public class Solution {
     public List<Route> getRoutes() {
         return routes;
     }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Restart of the solver that found this solution, or -1 if it didn't come from the solver
+     */
+    public long getRestart() {
+        return restart;
+    }
 }
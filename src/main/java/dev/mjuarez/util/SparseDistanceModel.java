@@ -0,0 +1,100 @@
+package dev.mjuarez.util;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Candidate graph that only keeps the k nearest pickups from every dropoff, which can still be driven to within the
+ * max drive time, in compressed rows: the edges of load i are edgeLoads[rowStart[i]] until
+ * edgeLoads[rowStart[i + 1] - 1].
+ * That's 12 * k * n bytes instead of the 8 * n^2 bytes of DistanceModel, so problems an order of magnitude larger fit
+ * in the same heap.  Legs from and to the depot come from the LoadSet, which already has them for every load, and
+ * the drive time in between any other pair is calculated from the coordinates when it's asked for.
+ * Like DistanceModel, this is built once per problem and shared read-only between every restart.
+ */
+public final class SparseDistanceModel implements CandidateGraph {
+    private final LoadSet loads;
+    private final int numOfLoads;
+
+    private final int[] rowStart;
+    private final int[] edgeLoads;
+    private final double[] edgeDriveTimes;
+
+    public SparseDistanceModel(LoadSet loads, int nearestNeighbors) {
+        this.loads = loads;
+        this.numOfLoads = loads.getNumOfLoads();
+        int degree = Math.max(0, Math.min(nearestNeighbors, numOfLoads - 1));
+
+        PickupGrid pickupGrid = new PickupGrid(loads);
+        int[] nearest = new int[degree];
+        double[] squaredDistances = new double[degree];
+        int[] targets = new int[numOfLoads * degree];
+        double[] driveTimes = new double[numOfLoads * degree];
+        this.rowStart = new int[numOfLoads + 1];
+        int edges = 0;
+        for (int from = 0; from < numOfLoads; from++) {
+            int found = pickupGrid.findNearestToDropoff(from, degree, feasibleAfter(from), nearest, squaredDistances);
+
+            // Rows are sorted by load, the same order DistanceModel finds them in
+            Arrays.sort(nearest, 0, found);
+            for (int i = 0; i < found; i++) {
+                targets[edges] = nearest[i];
+                driveTimes[edges++] = loads.dropoffToPickup(from, nearest[i]);
+            }
+            rowStart[from + 1] = edges;
+        }
+        this.edgeLoads = Arrays.copyOf(targets, edges);
+        this.edgeDriveTimes = Arrays.copyOf(driveTimes, edges);
+    }
+
+    /**
+     * Whether a load can be done right after the given one, on a route with just the two of them
+     */
+    private PickupGrid.Filter feasibleAfter(int from) {
+        double before = loads.depotToPickup(from) + loads.pickupToDropoff(from);
+        return to -> to != from && before + loads.dropoffToPickup(from, to) + loads.pickupToDropoff(to)
+                + loads.dropoffToDepot(to) < CalculationsUtil.MAX_DRIVE_TIME_MINUTES;
+    }
+
+    public int getNumOfEdges() {
+        return edgeLoads.length;
+    }
+
+    @Override
+    public int collectCandidates(int from, BitSet removed, PickupGrid.Filter filter, int[] loads, double[] driveTimes) {
+        int count = 0;
+        for (int edge = rowStart[from]; edge < rowStart[from + 1]; edge++) {
+            int load = edgeLoads[edge];
+            if (!removed.get(load) && filter.accept(load)) {
+                loads[count] = load;
+                driveTimes[count++] = edgeDriveTimes[edge];
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int getNumOfLoads() {
+        return numOfLoads;
+    }
+
+    @Override
+    public double dropoffToPickup(int from, int to) {
+        return loads.dropoffToPickup(from, to);
+    }
+
+    @Override
+    public double depotToPickup(int load) {
+        return loads.depotToPickup(load);
+    }
+
+    @Override
+    public double pickupToDropoff(int load) {
+        return loads.pickupToDropoff(load);
+    }
+
+    @Override
+    public double dropoffToDepot(int load) {
+        return loads.dropoffToDepot(load);
+    }
+}
@@ -0,0 +1,29 @@
+package dev.mjuarez.util;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD version of the scalar kernel, using as many lanes as the CPU supports.  Only loaded through DistanceKernel.create,
+ * when the jdk.incubator.vector module is available.
+ */
+final class VectorDistanceKernel implements DistanceKernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public void row(double fromX, double fromY, double[] toX, double[] toY, int size, double[] row, int offset) {
+        DoubleVector x = DoubleVector.broadcast(SPECIES, fromX);
+        DoubleVector y = DoubleVector.broadcast(SPECIES, fromY);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(size); i < bound; i += SPECIES.length()) {
+            DoubleVector dx = DoubleVector.fromArray(SPECIES, toX, i).sub(x);
+            DoubleVector dy = DoubleVector.fromArray(SPECIES, toY, i).sub(y);
+            dx.mul(dx).add(dy.mul(dy)).sqrt().intoArray(row, offset + i);
+        }
+
+        // Whatever doesn't fill a whole vector
+        for (; i < size; i++) {
+            row[offset + i] = CalculationsUtil.calculateTimeInMinutes(fromX, fromY, toX[i], toY[i]);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package dev.mjuarez.challenge;
+
+import dev.mjuarez.util.CandidateGraph;
+import dev.mjuarez.util.DistanceModel;
+import dev.mjuarez.util.LoadSet;
+import dev.mjuarez.util.Route;
+import dev.mjuarez.util.Solution;
+import dev.mjuarez.util.SparseDistanceModel;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The iterative search is a drop-in replacement for the recursive one: same seed, same routes
+ */
+class AdjacencyMatrixGraphTest {
+
+    @Test
+    void iterativeAndRecursiveSearchesFindTheSameRoutes() {
+        for (long seed = 0; seed < 20; seed++) {
+            LoadSet loads = TestProblems.randomLoads(seed, 20 + (int) seed * 10, 100);
+            DistanceModel distanceModel = new DistanceModel(loads);
+            BitSet priorityLoads = AdjacencyMatrixGraph.selectPriorityLoads(loads);
+            for (boolean annealing : new boolean[]{false, true}) {
+                for (BitSet priority : new BitSet[]{null, priorityLoads}) {
+                    Solution recursive = search(distanceModel, annealing, priority, seed, AdjacencyMatrixGraph.SearchMode.RECURSIVE);
+                    Solution iterative = search(distanceModel, annealing, priority, seed, AdjacencyMatrixGraph.SearchMode.ITERATIVE);
+                    assertSameRoutes(recursive, iterative, String.format("seed [%d], annealing [%s], priority [%s]", seed, annealing, priority != null));
+                    TestProblems.assertValid(loads, iterative);
+                }
+            }
+        }
+    }
+
+    @Test
+    void iterativeAndRecursiveSearchesFindTheSameRoutesOnASparseGraph() {
+        for (long seed = 0; seed < 20; seed++) {
+            LoadSet loads = TestProblems.randomLoads(seed, 50 + (int) seed * 10, 100);
+            // Few enough candidates that dropoffs run out of edges, and the search has to fall back to every load left
+            SparseDistanceModel distanceModel = new SparseDistanceModel(loads, 1 + (int) seed % 4);
+            for (boolean annealing : new boolean[]{false, true}) {
+                Solution recursive = search(distanceModel, annealing, null, seed, AdjacencyMatrixGraph.SearchMode.RECURSIVE);
+                Solution iterative = search(distanceModel, annealing, null, seed, AdjacencyMatrixGraph.SearchMode.ITERATIVE);
+                assertSameRoutes(recursive, iterative, String.format("seed [%d], annealing [%s]", seed, annealing));
+                TestProblems.assertValid(loads, recursive);
+            }
+        }
+    }
+
+    private static Solution search(CandidateGraph distanceModel, boolean annealing, BitSet priority, long seed, AdjacencyMatrixGraph.SearchMode searchMode) {
+        AdjacencyMatrixGraph graph = new AdjacencyMatrixGraph(distanceModel, annealing, new SplittableRandom(seed), searchMode);
+        if (priority != null) {
+            graph.setPriorityLoads(priority);
+        }
+        return graph.findSolution();
+    }
+
+    private static void assertSameRoutes(Solution expected, Solution actual, String message) {
+        assertEquals(expected.getRoutes().size(), actual.getRoutes().size(), message);
+        for (int r = 0; r < expected.getRoutes().size(); r++) {
+            Route expectedRoute = expected.getRoutes().get(r);
+            Route actualRoute = actual.getRoutes().get(r);
+            assertEquals(expectedRoute.getSize(), actualRoute.getSize(), message);
+            for (int k = 0; k < expectedRoute.getSize(); k++) {
+                assertEquals(expectedRoute.getLoad(k), actualRoute.getLoad(k), message);
+            }
+        }
+        assertEquals(expected.getTotalCost(), actual.getTotalCost(), message);
+    }
+}
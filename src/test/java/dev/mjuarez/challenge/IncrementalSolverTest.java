@@ -0,0 +1,72 @@
+package dev.mjuarez.challenge;
+
+import dev.mjuarez.util.LoadSet;
+import dev.mjuarez.util.Route;
+import dev.mjuarez.util.Solution;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementalSolverTest {
+    private static final double EPSILON = 1e-6;
+
+    @Test
+    void repairNeverRaisesTheTotalCost() {
+        // Loads that the repair can fit in 2 routes instead of 4, but only with 32 more minutes, which only pays off
+        // if those 4 routes were the whole solution
+        LoadSet loads = new LoadSet();
+        loads.add(1, -44.335, -82.756, -57.500, -107.330);
+        loads.add(2, -88.670, -165.512, -95.752, -178.730);
+        loads.add(3, 1.999, 197.743, 2.165, 214.140);
+        loads.add(4, 49.923, -22.834, 62.674, -28.666);
+        loads.add(5, 99.847, -45.669, 104.320, -47.714);
+        loads.add(6, 149.770, -68.503, 175.149, -80.111);
+        loads.add(7, -41.521, -14.052, -66.411, -22.475);
+        // Cancelled loads that start and end at the depot, so taking them out changes those routes and nothing else
+        for (int id = 8; id <= 11; id++) {
+            loads.add(id, 0, 0, 0, 0);
+        }
+        List<Route> routes = new ArrayList<>();
+        routes.add(new Route(loads, new int[]{0, 1, 7}, 3));
+        routes.add(new Route(loads, new int[]{2, 8}, 2));
+        routes.add(new Route(loads, new int[]{3, 4, 5, 9}, 4));
+        routes.add(new Route(loads, new int[]{6, 10}, 2));
+        // Lots of short routes that the update doesn't touch
+        for (int id = 100; id < 200; id++) {
+            loads.add(id, 0, 0, 1, 0);
+            routes.add(new Route(loads, new int[]{loads.getNumOfLoads() - 1}, 1));
+        }
+        Solution solution = new Solution(routes);
+        int[] removedIds = {8, 9, 10, 11};
+
+        double unrepaired = new IncrementalSolver(loads, solution).update(new LoadSet(), removedIds, new Termination(0)).getTotalCost();
+        IncrementalSolver solver = new IncrementalSolver(loads, solution);
+        Solution repaired = solver.update(new LoadSet(), removedIds, new Termination(60_000));
+
+        assertTrue(repaired.getTotalCost() <= unrepaired + EPSILON,
+                String.format("repaired [%s], unrepaired [%s]", repaired.getTotalCost(), unrepaired));
+        TestProblems.assertValid(solver.getLoads(), repaired);
+    }
+
+    @Test
+    void removesAndInsertsLoads() {
+        LoadSet loads = new LoadSet();
+        loads.add(1, 10, 0, 20, 0);
+        loads.add(2, 0, 10, 0, 20);
+        Solution solution = new Solution(List.of(new Route(loads, new int[]{0}, 1), new Route(loads, new int[]{1}, 1)));
+        LoadSet inserted = new LoadSet();
+        inserted.add(3, 21, 0, 30, 0);
+
+        IncrementalSolver solver = new IncrementalSolver(loads, solution);
+        Solution updated = solver.update(inserted, new int[]{2}, new Termination(1000));
+
+        assertEquals(2, solver.getLoads().getNumOfLoads());
+        assertEquals(1, updated.getRoutes().size());
+        TestProblems.assertValid(solver.getLoads(), updated);
+    }
+}
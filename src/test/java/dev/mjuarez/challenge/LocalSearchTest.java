@@ -0,0 +1,79 @@
+package dev.mjuarez.challenge;
+
+import dev.mjuarez.util.LoadSet;
+import dev.mjuarez.util.Route;
+import dev.mjuarez.util.Solution;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalSearchTest {
+
+    @Test
+    void improvesWithoutBreakingFeasibility() {
+        for (long seed = 0; seed < 30; seed++) {
+            LoadSet loads = TestProblems.randomLoads(seed, 10 + (int) seed * 5, 30 + seed * 4);
+
+            // A driver per load is always feasible, and leaves plenty to improve
+            List<Route> routes = new ArrayList<>();
+            for (int load = 0; load < loads.getNumOfLoads(); load++) {
+                routes.add(new Route(loads, new int[]{load}, 1));
+            }
+            Solution initial = new Solution(routes);
+            Solution improved = new LocalSearch().improve(initial, new Termination(60_000));
+            TestProblems.assertValid(loads, improved);
+            assertTrue(improved.getTotalCost() < initial.getTotalCost());
+
+            // Starting from a constructed solution, it can only get cheaper
+            Solution savings = new SavingsConstructor(loads).build();
+            Solution fromSavings = new LocalSearch().improve(savings, new Termination(60_000));
+            TestProblems.assertValid(loads, fromSavings);
+            assertTrue(fromSavings.getTotalCost() <= savings.getTotalCost());
+        }
+    }
+
+    @Test
+    void returnsTheSameSolutionOnceTerminated() {
+        LoadSet loads = TestProblems.randomLoads(1, 20, 50);
+        List<Route> routes = new ArrayList<>();
+        for (int load = 0; load < loads.getNumOfLoads(); load++) {
+            routes.add(new Route(loads, new int[]{load}, 1));
+        }
+        Solution initial = new Solution(routes);
+        assertSame(initial, new LocalSearch().improve(initial, new Termination(0)));
+    }
+
+    @Test
+    void scoresMovesAgainstTheFixedBase() {
+        // Routes that fit in 2 instead of 4, but only by driving 32 more minutes
+        LoadSet loads = new LoadSet();
+        loads.add(1, -44.335, -82.756, -57.500, -107.330);
+        loads.add(2, -88.670, -165.512, -95.752, -178.730);
+        loads.add(3, 1.999, 197.743, 2.165, 214.140);
+        loads.add(4, 49.923, -22.834, 62.674, -28.666);
+        loads.add(5, 99.847, -45.669, 104.320, -47.714);
+        loads.add(6, 149.770, -68.503, 175.149, -80.111);
+        loads.add(7, -41.521, -14.052, -66.411, -22.475);
+        Solution initial = new Solution(List.of(new Route(loads, new int[]{0, 1}, 2), new Route(loads, new int[]{2}, 1),
+                new Route(loads, new int[]{3, 4, 5}, 3), new Route(loads, new int[]{6}, 1)));
+        Solution alone = new LocalSearch().improve(initial, new Termination(60_000));
+        assertEquals(2, alone.getRoutes().size());
+
+        // With 100 short routes around them, saving 2 drivers isn't worth 32 minutes anymore
+        Solution withBase = new LocalSearch(100, 200).improve(initial, new Termination(60_000));
+        TestProblems.assertValid(loads, withBase);
+        assertTrue(totalCost(withBase, 100, 200) <= totalCost(initial, 100, 200));
+        assertTrue(totalCost(alone, 100, 200) > totalCost(initial, 100, 200));
+    }
+
+    private static double totalCost(Solution solution, int fixedDrivers, double fixedMinutes) {
+        double minutes = solution.getRoutes().stream().mapToDouble(Route::getCost).sum();
+        return 500 * (fixedDrivers + solution.getRoutes().size()) * (fixedMinutes + minutes);
+    }
+}
@@ -0,0 +1,45 @@
+package dev.mjuarez.challenge;
+
+import dev.mjuarez.util.DistanceModel;
+import dev.mjuarez.util.LoadSet;
+import dev.mjuarez.util.Solution;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SavingsConstructorTest {
+
+    @Test
+    void buildsFeasibleSolutions() {
+        for (long seed = 0; seed < 30; seed++) {
+            // From loads that all fit in a few routes, to loads so far out that most of them need a driver of their own
+            double distance = 20 + seed * 5;
+            LoadSet loads = TestProblems.randomLoads(seed, 1 + (int) seed * 7, distance);
+            Solution solution = new SavingsConstructor(new DistanceModel(loads)).build();
+            TestProblems.assertValid(loads, solution);
+
+            // Same drive times straight from the coordinates, same routes
+            Solution fromCoordinates = new SavingsConstructor(loads).build();
+            assertEquals(solution.getTotalCost(), fromCoordinates.getTotalCost(), 1e-6 * solution.getTotalCost());
+        }
+    }
+
+    @Test
+    void mergesLoadsThatFitInASingleRoute() {
+        LoadSet loads = new LoadSet();
+        for (int id = 1; id <= 10; id++) {
+            loads.add(id, id, 0, id + 0.5, 0);
+        }
+        Solution solution = new SavingsConstructor(loads).build();
+        TestProblems.assertValid(loads, solution);
+        assertEquals(1, solution.getRoutes().size());
+        // Out along the axis, and back from the last dropoff
+        assertEquals(21, solution.getRoutes().get(0).getCost(), 1e-9);
+    }
+
+    @Test
+    void buildsNothingWithoutLoads() {
+        assertEquals(0, new SavingsConstructor(new LoadSet()).build().getRoutes().size());
+    }
+}
@@ -0,0 +1,131 @@
+package dev.mjuarez.challenge;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SolverServerTest {
+    private static final String LOADS = "[{\"id\": 1, \"pickup\": [1, 2], \"dropoff\": [3, 4]},"
+            + " {\"id\": 2, \"pickup\": [-5, 6], \"dropoff\": [-7, 8]}, {\"id\": 3, \"pickup\": [9, -10], \"dropoff\": [11, -12]}]";
+
+    private static SolverServer server;
+    private static HttpClient client;
+
+    @BeforeAll
+    static void start() throws IOException {
+        // The problem path is never read, it's only there because options need either a problem or a port, and port 0
+        // is the one that picks any free port
+        server = new SolverServer(SolverOptions.fromArgs(new String[]{"unused.txt", "--threads=1", "--seed=42"}));
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterAll
+    static void stop() {
+        server.stop();
+    }
+
+    @Test
+    void solvesTextProblems() throws Exception {
+        HttpResponse<String> response = post("/solve?budgetMs=200", "text/plain",
+                "loadNumber pickup dropoff\n1 (1,2) (3,4)\r\n2 (-5,6) (-7,8)\n3 (9,-10) (11,-12)\n");
+        assertEquals(200, response.statusCode());
+        assertEveryLoadOnce(response.body(), 3);
+        assertEquals("42", response.headers().firstValue("X-Solver-Seed").orElseThrow());
+    }
+
+    @Test
+    void solvesJsonProblems() throws Exception {
+        HttpResponse<String> response = post("/solve", "application/json", "{\"budgetMs\": 200, \"loads\": " + LOADS + "}");
+        assertEquals(200, response.statusCode());
+        assertEveryLoadOnce(response.body(), 3);
+    }
+
+    @Test
+    void rejectsBadRequests() throws Exception {
+        assertEquals(405, client.send(HttpRequest.newBuilder(uri("/solve")).GET().build(), HttpResponse.BodyHandlers.ofString()).statusCode());
+        assertStatus(400, "/solve", "text/plain", "");
+        assertStatus(400, "/solve", "text/plain", "1 (1,2) (3,4");
+        assertStatus(400, "/solve", "application/json", "{\"loads\": [");
+        assertStatus(400, "/solve", "application/json", "{\"loads\": [{\"id\": 1.5, \"pickup\": [1, 2], \"dropoff\": [3, 4]}]}");
+        assertStatus(400, "/solve", "application/json", "{\"loads\": [{\"id\": 1e12, \"pickup\": [1, 2], \"dropoff\": [3, 4]}]}");
+        assertStatus(400, "/solve", "application/json", "{\"loads\": [{\"id\": 1, \"pickup\": [1], \"dropoff\": [3, 4]}]}");
+
+        // Nobody can do this load within the max drive time, so there's no solution
+        HttpResponse<String> response = post("/solve?budgetMs=200", "text/plain", "1 (1,2) (3,4)\n2 (500,0) (501,0)\n");
+        assertEquals(400, response.statusCode());
+        assertTrue(response.body().contains("max drive time [2]"), response.body());
+    }
+
+    @Test
+    void rejectsRequestsOverTheMaxSize() throws Exception {
+        char[] body = new char[(16 << 20) + 1];
+        Arrays.fill(body, ' ');
+        assertStatus(413, "/solve", "text/plain", new String(body));
+    }
+
+    @Test
+    void updatesSolutions() throws Exception {
+        HttpResponse<String> response = post("/update", "application/json", "{\"budgetMs\": 200, \"loads\": " + LOADS + ","
+                + " \"routes\": [[1, 2], [3]], \"inserted\": [{\"id\": 4, \"pickup\": [2, 3], \"dropoff\": [4, 5]}], \"removed\": [2]}");
+        assertEquals(200, response.statusCode());
+        List<String> ids = ids(response.body());
+        assertEquals(3, ids.size());
+        assertTrue(ids.containsAll(List.of("1", "3", "4")), response.body());
+
+        // Routes that aren't a solution of the loads, and deltas that don't match them
+        assertStatus(400, "/update", "application/json", "{\"loads\": " + LOADS + ", \"routes\": [[1, 2]]}");
+        assertStatus(400, "/update", "application/json", "{\"loads\": " + LOADS + ", \"routes\": [[1, 2], [2, 3]]}");
+        assertStatus(400, "/update", "application/json", "{\"loads\": " + LOADS + ", \"routes\": [[1, 2], [3], []]}");
+        assertStatus(400, "/update", "application/json", "{\"loads\": " + LOADS + ", \"routes\": [[1, 2], [3]], \"removed\": [9]}");
+        assertStatus(400, "/update", "application/json", "{\"loads\": " + LOADS + ", \"routes\": [[1, 2], [3]],"
+                + " \"inserted\": [{\"id\": 2, \"pickup\": [1, 1], \"dropoff\": [2, 2]}]}");
+        assertStatus(400, "/update", "application/json", "{\"loads\": " + LOADS + ", \"routes\": [[1, 2], [3]],"
+                + " \"inserted\": [{\"id\": 4, \"pickup\": [500, 0], \"dropoff\": [501, 0]}]}");
+    }
+
+    private static void assertEveryLoadOnce(String routes, int numOfLoads) {
+        List<String> ids = ids(routes);
+        assertEquals(numOfLoads, ids.size(), routes);
+        for (int id = 1; id <= numOfLoads; id++) {
+            assertTrue(ids.contains(Integer.toString(id)), routes);
+        }
+    }
+
+    /**
+     * Every id in the routes, which come one per line, like [1,2]
+     */
+    private static List<String> ids(String routes) {
+        return Arrays.stream(routes.split("\n"))
+                .flatMap(line -> Arrays.stream(line.substring(1, line.length() - 1).split(",")))
+                .toList();
+    }
+
+    private static void assertStatus(int status, String path, String contentType, String body) throws Exception {
+        HttpResponse<String> response = post(path, contentType, body);
+        assertEquals(status, response.statusCode(), response.body());
+    }
+
+    private static HttpResponse<String> post(String path, String contentType, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static URI uri(String path) {
+        return URI.create("http://localhost:" + server.getPort() + path);
+    }
+}
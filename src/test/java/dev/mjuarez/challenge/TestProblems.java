@@ -0,0 +1,59 @@
+package dev.mjuarez.challenge;
+
+import dev.mjuarez.util.LoadSet;
+import dev.mjuarez.util.Route;
+import dev.mjuarez.util.Solution;
+
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Random problems and the checks every solution has to pass, shared by the solver tests
+ */
+final class TestProblems {
+
+    private TestProblems() {
+    }
+
+    /**
+     * Loads with pickups and dropoffs anywhere within the given distance of the depot, along both axes, as long as a
+     * driver can do them on their own
+     */
+    static LoadSet randomLoads(long seed, int numOfLoads, double distance) {
+        SplittableRandom random = new SplittableRandom(seed);
+        LoadSet candidate = new LoadSet(1);
+        LoadSet loads = new LoadSet(numOfLoads);
+        while (loads.getNumOfLoads() < numOfLoads) {
+            candidate.add(loads.getNumOfLoads() + 1, random.nextDouble(-distance, distance), random.nextDouble(-distance, distance),
+                    random.nextDouble(-distance, distance), random.nextDouble(-distance, distance));
+            int last = candidate.getNumOfLoads() - 1;
+            if (candidate.isReachable(last)) {
+                loads.add(candidate, last);
+            }
+        }
+        return loads;
+    }
+
+    /**
+     * Every load in exactly one route, every route within the max drive time, and the cost adds up
+     */
+    static void assertValid(LoadSet loads, Solution solution) {
+        BitSet routed = new BitSet(loads.getNumOfLoads());
+        double minutes = 0;
+        for (Route route : solution.getRoutes()) {
+            assertTrue(route.getSize() > 0);
+            assertTrue(route.isFeasible(0), () -> String.format("route over the max drive time [%s]", route.getCost()));
+            for (int k = 0; k < route.getSize(); k++) {
+                assertFalse(routed.get(route.getLoad(k)), "load in more than one route");
+                routed.set(route.getLoad(k));
+            }
+            minutes += route.getCost();
+        }
+        assertEquals(loads.getNumOfLoads(), routed.cardinality());
+        assertEquals(500 * solution.getRoutes().size() * minutes, solution.getTotalCost(), 1e-6 * solution.getTotalCost());
+    }
+}
@@ -0,0 +1,78 @@
+package dev.mjuarez.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+/**
+ * The SIMD kernel has to return the exact same bits as calculateTimeInMinutes, or the distance model (and every solution
+ * built on top of it) would depend on whether the incubator module is there.  Surefire runs with the module added.
+ */
+class DistanceKernelTest {
+    // Doubles in the widest vector there is (512 bits), so the sizes below cover every tail length on any CPU
+    private static final int LANES = 8;
+
+    @Test
+    void createsTheVectorKernelWhenTheModuleIsPresent() {
+        assertInstanceOf(VectorDistanceKernel.class, DistanceKernel.create());
+    }
+
+    @Test
+    void vectorRowsMatchTheScalarOnesBitForBit() {
+        SplittableRandom random = new SplittableRandom(42);
+        DistanceKernel vector = new VectorDistanceKernel();
+        DistanceKernel scalar = DistanceKernel.scalar();
+
+        // Every size up to a few vectors long, so every tail length that doesn't fill a whole vector comes up
+        for (int size = 0; size <= 4 * LANES + 3; size++) {
+            for (int round = 0; round < 20; round++) {
+                assertSameRows(vector, scalar, random, size, random.nextInt(3));
+            }
+        }
+        assertSameRows(vector, scalar, random, 1000 + LANES - 1, 5);
+    }
+
+    @Test
+    void vectorRowsMatchCalculateTimeInMinutesOnEdgeCases() {
+        double[] coordinates = {0, -0.0, 1e-300, -1e-300, 1e300, -1e300, 180.123456789, -95.5, Double.MIN_VALUE, 3};
+        double[] toX = coordinates.clone();
+        double[] toY = new double[coordinates.length];
+        for (int i = 0; i < toY.length; i++) {
+            toY[i] = coordinates[coordinates.length - 1 - i];
+        }
+        double[] row = new double[coordinates.length];
+        DistanceKernel vector = new VectorDistanceKernel();
+        for (double fromX : coordinates) {
+            for (double fromY : coordinates) {
+                vector.row(fromX, fromY, toX, toY, coordinates.length, row, 0);
+                for (int i = 0; i < coordinates.length; i++) {
+                    double expected = CalculationsUtil.calculateTimeInMinutes(fromX, fromY, toX[i], toY[i]);
+                    assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(row[i]),
+                            String.format("from (%s, %s) to (%s, %s)", fromX, fromY, toX[i], toY[i]));
+                }
+            }
+        }
+    }
+
+    private static void assertSameRows(DistanceKernel vector, DistanceKernel scalar, SplittableRandom random, int size, int offset) {
+        double fromX = random.nextDouble(-200, 200);
+        double fromY = random.nextDouble(-200, 200);
+        double[] toX = new double[size];
+        double[] toY = new double[size];
+        for (int i = 0; i < size; i++) {
+            toX[i] = random.nextDouble(-200, 200);
+            toY[i] = random.nextDouble(-200, 200);
+        }
+        double[] expected = new double[offset + size];
+        double[] actual = new double[offset + size];
+        scalar.row(fromX, fromY, toX, toY, size, expected, offset);
+        vector.row(fromX, fromY, toX, toY, size, actual, offset);
+        for (int i = 0; i < offset + size; i++) {
+            assertEquals(Double.doubleToRawLongBits(expected[i]), Double.doubleToRawLongBits(actual[i]),
+                    String.format("size [%d], offset [%d], index [%d]", size, offset, i));
+        }
+    }
+}
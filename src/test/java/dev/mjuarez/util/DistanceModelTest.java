@@ -0,0 +1,52 @@
+package dev.mjuarez.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DistanceModelTest {
+
+    @Test
+    void matchesTheDriveTimesOfTheLoads() {
+        SplittableRandom random = new SplittableRandom(42);
+        LoadSet loads = new LoadSet();
+        for (int id = 0; id < 30; id++) {
+            loads.add(id, random.nextDouble(-100, 100), random.nextDouble(-100, 100), random.nextDouble(-100, 100), random.nextDouble(-100, 100));
+        }
+        DistanceModel distanceModel = new DistanceModel(loads);
+        for (int from = 0; from < loads.getNumOfLoads(); from++) {
+            assertEquals(loads.depotToPickup(from), distanceModel.depotToPickup(from));
+            assertEquals(loads.pickupToDropoff(from), distanceModel.pickupToDropoff(from));
+            assertEquals(loads.dropoffToDepot(from), distanceModel.dropoffToDepot(from));
+            for (int to = 0; to < loads.getNumOfLoads(); to++) {
+                assertEquals(loads.dropoffToPickup(from, to), distanceModel.dropoffToPickup(from, to));
+            }
+        }
+
+        BitSet removed = new BitSet();
+        removed.set(3);
+        int[] candidates = new int[loads.getNumOfLoads()];
+        int found = distanceModel.collectCandidates(0, removed, load -> load % 2 == 1, candidates, new double[loads.getNumOfLoads()]);
+        // Every odd load but 3, and never the load itself
+        assertEquals(14, found);
+        assertEquals(1, candidates[0]);
+        assertEquals(5, candidates[1]);
+    }
+
+    @Test
+    void rejectsMoreLoadsThanTheMatrixCanHold() {
+        // A single array can't hold the n^2 drive times past this many loads, and the size would overflow an int
+        assertEquals(46340, DistanceModel.MAX_LOADS);
+        LoadSet loads = new LoadSet();
+        for (int id = 0; id <= DistanceModel.MAX_LOADS; id++) {
+            loads.add(id, 0, 0, 1, 1);
+        }
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> new DistanceModel(loads));
+        assertTrue(e.getMessage().contains("--sparse"), e.getMessage());
+    }
+}
@@ -0,0 +1,59 @@
+package dev.mjuarez.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonTest {
+
+    @Test
+    void parsesARequest() {
+        Object value = Json.parse(" {\"budgetMs\": 5000, \"loads\": [{\"id\": 1, \"pickup\": [-9.1, -48.9e0], \"dropoff\": [-116.8, 7.68E1]}],"
+                + " \"stats\": true, \"seed\": null, \"empty\": {}, \"none\": []} ");
+        Map<?, ?> request = (Map<?, ?>) value;
+        assertEquals(List.of("budgetMs", "loads", "stats", "seed", "empty", "none"), List.copyOf(request.keySet()));
+        assertEquals(5000.0, request.get("budgetMs"));
+        Map<?, ?> load = (Map<?, ?>) ((List<?>) request.get("loads")).get(0);
+        assertEquals(1.0, load.get("id"));
+        assertEquals(List.of(-9.1, -48.9), load.get("pickup"));
+        assertEquals(List.of(-116.8, 76.8), load.get("dropoff"));
+        assertEquals(Boolean.TRUE, request.get("stats"));
+        assertNull(request.get("seed"));
+        assertTrue(request.containsKey("seed"));
+        assertEquals(Map.of(), request.get("empty"));
+        assertEquals(List.of(), request.get("none"));
+    }
+
+    @Test
+    void parsesStringEscapes() {
+        assertEquals("a\"b\\c/d\b\f\n\r\t\u00e9\u20ac", Json.parse("\"a\\\"b\\\\c\\/d\\b\\f\\n\\r\\t\\u00e9\\u20AC\""));
+        assertEquals("", Json.parse("\"\""));
+    }
+
+    @Test
+    void parsesNumbersLikeParseDouble() {
+        for (String number : List.of("0", "-0", "1", "-1.5", "1e3", "1E-3", "2.5e+10", "123456789012345678901234567890", "4.9e-324")) {
+            assertEquals(Double.parseDouble(number), Json.parse(number), number);
+        }
+    }
+
+    @Test
+    void rejectsMalformedInput() {
+        char[] nested = new char[100];
+        Arrays.fill(nested, '[');
+        for (String text : List.of(
+                "", "   ", "{", "[1, 2", "{\"a\" 1}", "{\"a\": 1,}", "{a: 1}", "[1 2]", "[1,]", "\"unterminated",
+                "\"bad \\x escape\"", "\"\\u12\"", "\"\\u12G4\"", "1.2.3", "--1", "tru", "nul", "{} {}", "[1] x", "@",
+                new String(nested))) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> Json.parse(text), text);
+            assertTrue(e.getMessage().startsWith("Malformed JSON at position"), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package dev.mjuarez.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Coordinates have to come out of the parser with the exact same bits as Double.parseDouble, whichever path decodes them
+ */
+class LoadFileParserTest {
+
+    @Test
+    void parsesTheSampleFormat() throws IOException {
+        LoadSet loads = parse("loadNumber pickup dropoff\n"
+                + "1 (-9.100071078494038,-48.89301103772511) (-116.78442279683607,76.80147820713637)\n"
+                + "2 (2.3,4.5) (6.7,8.9)\n");
+        assertEquals(2, loads.getNumOfLoads());
+        assertEquals(1, loads.getId(0));
+        assertSameBits(-9.100071078494038, loads.getPickupX(0));
+        assertSameBits(76.80147820713637, loads.getDropoffY(0));
+        assertEquals(2, loads.getId(1));
+        assertSameBits(6.7, loads.getDropoffX(1));
+    }
+
+    @Test
+    void skipsHeadersBlankLinesAndCarriageReturns() throws IOException {
+        LoadSet loads = parse("loadNumber pickup dropoff\r\n\r\n1 (1,2) (3,4)\r\n   \r\nanother header\n\t2\t( 5 , 6 )\t(7,8)  \r\n3 (9,10) (11,12)");
+        assertEquals(3, loads.getNumOfLoads());
+        assertEquals(2, loads.getId(1));
+        assertSameBits(5, loads.getPickupX(1));
+        assertSameBits(8, loads.getDropoffY(1));
+        assertSameBits(12, loads.getDropoffY(2));
+    }
+
+    @Test
+    void matchesParseDoubleOnRandomCoordinates() throws IOException {
+        SplittableRandom random = new SplittableRandom(42);
+        List<String> coordinates = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            double value = random.nextDouble(-200, 200);
+            coordinates.add(switch (i % 4) {
+                // Shortest representation, up to 17 digits
+                case 0 -> Double.toString(value);
+                // Fewer digits, the fast path
+                case 1 -> String.format("%.6f", value);
+                // More than 19 digits, the fallback
+                case 2 -> new BigDecimal(value).toPlainString();
+                // Scientific notation
+                default -> String.format("%.15e", value);
+            });
+        }
+        assertSameCoordinates(coordinates);
+    }
+
+    @Test
+    void matchesParseDoubleOnHardCases() throws IOException {
+        assertSameCoordinates(List.of(
+                "0", "-0", "0.0", "-0.0", "+1.5", "000123.4500", ".5", "5.", "1e0", "1E+2", "1e-2", "-2.5E-3",
+                // Exactly halfway in between two doubles, both ways, and just past it
+                "9007199254740993", "9007199254740995", "9007199254740993.0000000001",
+                // Powers of ten past the fast path, for Eisel-Lemire
+                "1.7976931348623157e30", "4.9e-40", "123456789012345678e-30", "18446744073709551615", "9.999999999999999e22",
+                // Past the table of powers, or out of range, for the fallback
+                "1e300", "2.2250738585072011e-308", "4.9e-324", "1e-400", "1e400",
+                // More digits than fit in a long
+                "3.14159265358979323846264338327950288", "0.1000000000000000055511151231257827021181583404541015625"));
+    }
+
+    @Test
+    void matchesBigDecimalForEverySignificandAndPower() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 200_000; i++) {
+            long significand = random.nextLong();
+            int power = random.nextInt(-70, 70);
+            double value = LoadFileParser.toDouble(significand, power);
+            // NaN means it's left to the fallback, anything else has to be exact
+            if (!Double.isNaN(value)) {
+                double expected = new BigDecimal(Long.toUnsignedString(significand)).scaleByPowerOfTen(power).doubleValue();
+                assertSameBits(expected, value, Long.toUnsignedString(significand) + "e" + power);
+            }
+        }
+    }
+
+    @Test
+    void parsesLinesLongerThanTheBuffer() throws IOException {
+        StringBuilder input = new StringBuilder("1 (1,2)");
+        input.append(" ".repeat(200_000));
+        input.append("(3,4)\n");
+        for (int id = 2; id < 10_000; id++) {
+            input.append(id).append(" (").append(id * 0.001).append(',').append(-id * 0.002).append(") (0.5,0.25)\n");
+        }
+        LoadSet loads = parse(input.toString());
+        assertEquals(9_999, loads.getNumOfLoads());
+        assertSameBits(4, loads.getDropoffY(0));
+        assertSameBits(9_999 * 0.001, loads.getPickupX(9_998));
+    }
+
+    @Test
+    void rejectsMalformedLines() {
+        for (String line : List.of(
+                "1 (1,2 (3,4)",
+                "1 (1,2) (3,4) 5",
+                "1 (1,2) (3,4",
+                "1 (1,2)",
+                "1 (,2) (3,4)",
+                "1 (1.2.3,4) (5,6)",
+                "1 (1e,2) (3,4)",
+                "1 (1e+,2) (3,4)",
+                "1 (--1,2) (3,4)",
+                "1 (1;2) (3,4)",
+                "-1 (1,2) (3,4)",
+                "99999999999 (1,2) (3,4)",
+                "(1,2) (3,4)")) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> parse("loadNumber pickup dropoff\n" + line + "\n"), line);
+            assertTrue(e.getMessage().contains("line 2") && e.getMessage().contains(line), e.getMessage());
+        }
+    }
+
+    private static void assertSameCoordinates(List<String> coordinates) throws IOException {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < coordinates.size(); i++) {
+            String coordinate = coordinates.get(i);
+            input.append(i + 1).append(" (").append(coordinate).append(",1) (2,").append(coordinate).append(")\n");
+        }
+        LoadSet loads = parse(input.toString());
+        assertEquals(coordinates.size(), loads.getNumOfLoads());
+        for (int i = 0; i < coordinates.size(); i++) {
+            double expected = Double.parseDouble(coordinates.get(i));
+            assertSameBits(expected, loads.getPickupX(i), coordinates.get(i));
+            assertSameBits(expected, loads.getDropoffY(i), coordinates.get(i));
+        }
+    }
+
+    private static LoadSet parse(String input) throws IOException {
+        return LoadFileParser.parse(Channels.newChannel(new ByteArrayInputStream(input.getBytes(StandardCharsets.US_ASCII))));
+    }
+
+    private static void assertSameBits(double expected, double actual) {
+        assertSameBits(expected, actual, Double.toString(expected));
+    }
+
+    private static void assertSameBits(double expected, double actual, String input) {
+        assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(actual), input);
+    }
+}
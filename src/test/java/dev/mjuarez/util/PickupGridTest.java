@@ -0,0 +1,94 @@
+package dev.mjuarez.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The grid has to find the same nearest pickups as looking at every single load
+ */
+class PickupGridTest {
+
+    @Test
+    void findsTheSameNearestPickupsAsALinearScan() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int round = 0; round < 50; round++) {
+            LoadSet loads = new LoadSet();
+            int numOfLoads = 1 + random.nextInt(300);
+            boolean clustered = round % 2 == 0;
+            for (int id = 0; id < numOfLoads; id++) {
+                // Half of the problems have every pickup in a few tight clusters, so most cells are empty
+                double x = clustered ? 50 * random.nextInt(4) + random.nextDouble() : random.nextDouble(-200, 200);
+                double y = clustered ? -50 * random.nextInt(4) + random.nextDouble() : random.nextDouble(-200, 200);
+                loads.add(id, x, y, random.nextDouble(-200, 200), random.nextDouble(-200, 200));
+            }
+            PickupGrid grid = new PickupGrid(loads);
+
+            for (int query = 0; query < 20; query++) {
+                // From inside and well outside of the grid
+                double x = random.nextDouble(-400, 400);
+                double y = random.nextDouble(-400, 400);
+                int k = 1 + random.nextInt(numOfLoads + 2);
+                int modulo = 1 + random.nextInt(3);
+                PickupGrid.Filter filter = load -> load % modulo == 0;
+                assertSameAsLinearScan(loads, grid, x, y, k, filter);
+            }
+            for (int load = 0; load < numOfLoads; load++) {
+                int self = load;
+                int[] nearest = new int[4];
+                double[] squaredDistances = new double[4];
+                int found = grid.findNearestToDropoff(load, 4, other -> other != self, nearest, squaredDistances);
+                assertEquals(Math.min(4, numOfLoads - 1), found);
+                assertSameAsLinearScan(loads, grid, loads.getDropoffX(load), loads.getDropoffY(load), 4, other -> other != self);
+            }
+        }
+    }
+
+    @Test
+    void findsNothingWhenEverythingIsFilteredOut() {
+        LoadSet loads = new LoadSet();
+        loads.add(1, 1, 1, 2, 2);
+        PickupGrid grid = new PickupGrid(loads);
+        assertEquals(0, grid.findNearest(0, 0, 3, load -> false, new int[3], new double[3]));
+        assertEquals(0, grid.findNearest(0, 0, 0, load -> true, new int[0], new double[0]));
+        assertEquals(0, new PickupGrid(new LoadSet()).findNearest(0, 0, 1, load -> true, new int[1], new double[1]));
+    }
+
+    private static void assertSameAsLinearScan(LoadSet loads, PickupGrid grid, double x, double y, int k, PickupGrid.Filter filter) {
+        int[] nearest = new int[k];
+        double[] squaredDistances = new double[k];
+        int found = grid.findNearest(x, y, k, filter, nearest, squaredDistances);
+
+        double[] expected = new double[loads.getNumOfLoads()];
+        int accepted = 0;
+        for (int load = 0; load < loads.getNumOfLoads(); load++) {
+            if (filter.accept(load)) {
+                expected[accepted++] = squaredDistance(loads, load, x, y);
+            }
+        }
+        Arrays.sort(expected, 0, accepted);
+        assertEquals(Math.min(k, accepted), found);
+        // Ties can come back in any order, but the distances have to be the k smallest ones
+        assertArrayEquals(Arrays.copyOf(expected, found), Arrays.copyOf(squaredDistances, found));
+
+        Set<Integer> distinct = new HashSet<>();
+        for (int i = 0; i < found; i++) {
+            assertTrue(filter.accept(nearest[i]));
+            assertTrue(distinct.add(nearest[i]));
+            assertEquals(squaredDistance(loads, nearest[i], x, y), squaredDistances[i]);
+        }
+    }
+
+    private static double squaredDistance(LoadSet loads, int load, double x, double y) {
+        double dx = loads.getPickupX(load) - x;
+        double dy = loads.getPickupY(load) - y;
+        return dx * dx + dy * dy;
+    }
+}
@@ -0,0 +1,134 @@
+package dev.mjuarez.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Every delta has to match the cost of the route once the move is made, driven again from scratch
+ */
+class RouteTest {
+    private static final double TOLERANCE = 1e-9;
+
+    @Test
+    void deltasMatchTheRecomputedCost() {
+        SplittableRandom random = new SplittableRandom(42);
+        LoadSet loads = new LoadSet();
+        for (int id = 0; id < 40; id++) {
+            loads.add(id, random.nextDouble(-100, 100), random.nextDouble(-100, 100), random.nextDouble(-100, 100), random.nextDouble(-100, 100));
+        }
+
+        for (int round = 0; round < 500; round++) {
+            int size = 1 + random.nextInt(12);
+            int[] order = shuffledLoads(random, loads.getNumOfLoads());
+            Route route = new Route(loads, order, size);
+            assertEquals(drive(loads, order, size), route.getCost(), TOLERANCE);
+            int outside = order[size + random.nextInt(order.length - size)];
+
+            // Insertion at every position, including both ends
+            for (int position = 0; position <= size; position++) {
+                Route copy = new Route(route);
+                double delta = route.insertionDelta(outside, position);
+                copy.insert(outside, position);
+                assertMove(loads, route, copy, delta);
+            }
+            for (int position = 0; position < size; position++) {
+                Route removed = new Route(route);
+                double delta = route.removalDelta(position);
+                removed.remove(position);
+                assertMove(loads, route, removed, delta);
+
+                Route replaced = new Route(route);
+                delta = route.replacementDelta(position, outside);
+                replaced.replace(position, outside);
+                assertMove(loads, route, replaced, delta);
+            }
+            for (int i = 0; i < size; i++) {
+                for (int j = i; j < size; j++) {
+                    Route segment = new Route(route);
+                    double delta = route.segmentRemovalDelta(i, j);
+                    for (int k = i; k <= j; k++) {
+                        segment.remove(i);
+                    }
+                    assertMove(loads, route, segment, delta);
+                    if (i == j) {
+                        continue;
+                    }
+
+                    Route swapped = new Route(route);
+                    delta = route.swapDelta(i, j);
+                    swapped.swap(i, j);
+                    assertMove(loads, route, swapped, delta);
+
+                    Route reversed = new Route(route);
+                    delta = route.reversalDelta(i, j);
+                    reversed.reverse(i, j);
+                    assertMove(loads, route, reversed, delta);
+                }
+            }
+        }
+    }
+
+    @Test
+    void cachedSumsMatchTheRoute() {
+        SplittableRandom random = new SplittableRandom(7);
+        LoadSet loads = new LoadSet();
+        for (int id = 0; id < 10; id++) {
+            loads.add(id, random.nextDouble(-100, 100), random.nextDouble(-100, 100), random.nextDouble(-100, 100), random.nextDouble(-100, 100));
+        }
+        int[] order = shuffledLoads(random, loads.getNumOfLoads());
+        Route route = new Route(loads, order, order.length);
+        for (int position = 0; position <= order.length; position++) {
+            // Everything before the position, plus the link into it, plus everything from it, is the whole route
+            double total = route.driveTimeBefore(position)
+                    + route.link(route.loadAt(position - 1), route.loadAt(position))
+                    + route.driveTimeFrom(position);
+            assertEquals(route.getCost(), total, TOLERANCE);
+        }
+        assertEquals(Route.DEPOT, route.loadAt(-1));
+        assertEquals(Route.DEPOT, route.loadAt(order.length));
+    }
+
+    private static void assertMove(LoadSet loads, Route before, Route after, double delta) {
+        int[] order = new int[after.getSize()];
+        for (int k = 0; k < order.length; k++) {
+            order[k] = after.getLoad(k);
+        }
+        double driven = drive(loads, order, order.length);
+        assertEquals(driven, after.getCost(), TOLERANCE);
+        assertEquals(driven - before.getCost(), delta, TOLERANCE);
+    }
+
+    /**
+     * Drive time of the route, from leaving the depot until getting back, straight from the coordinates
+     */
+    private static double drive(LoadSet loads, int[] order, int size) {
+        double minutes = 0;
+        double x = CalculationsUtil.DEPOT_X;
+        double y = CalculationsUtil.DEPOT_Y;
+        for (int k = 0; k < size; k++) {
+            int load = order[k];
+            minutes += CalculationsUtil.calculateTimeInMinutes(x, y, loads.getPickupX(load), loads.getPickupY(load));
+            minutes += CalculationsUtil.calculateTimeInMinutes(loads.getPickupX(load), loads.getPickupY(load), loads.getDropoffX(load), loads.getDropoffY(load));
+            x = loads.getDropoffX(load);
+            y = loads.getDropoffY(load);
+        }
+        return minutes + CalculationsUtil.calculateTimeInMinutes(x, y, CalculationsUtil.DEPOT_X, CalculationsUtil.DEPOT_Y);
+    }
+
+    private static int[] shuffledLoads(SplittableRandom random, int numOfLoads) {
+        int[] order = new int[numOfLoads];
+        for (int i = 0; i < numOfLoads; i++) {
+            order[i] = i;
+        }
+        for (int i = numOfLoads - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int load = order[i];
+            order[i] = order[j];
+            order[j] = load;
+        }
+        return order;
+    }
+}
@@ -0,0 +1,126 @@
+package dev.mjuarez.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsBackExactlyWhatWasWritten() throws IOException {
+        LoadSet loads = loads();
+        Solution solution = new Solution(List.of(route(loads, 2, 0), route(loads, 1))).withOrigin(42, 7);
+        Path path = directory.resolve("solution.snap");
+        new Snapshot(loads, solution).write(path);
+
+        assertTrue(Snapshot.isSnapshot(path));
+        Snapshot snapshot = Snapshot.read(path);
+        for (int load = 0; load < loads.getNumOfLoads(); load++) {
+            assertEquals(loads.getId(load), snapshot.getLoads().getId(load));
+            assertEquals(Double.doubleToRawLongBits(loads.getPickupX(load)), Double.doubleToRawLongBits(snapshot.getLoads().getPickupX(load)));
+            assertEquals(Double.doubleToRawLongBits(loads.getDropoffY(load)), Double.doubleToRawLongBits(snapshot.getLoads().getDropoffY(load)));
+        }
+        assertEquals(solution.getTotalCost(), snapshot.getSolution().getTotalCost());
+        assertEquals(42, snapshot.getSolution().getSeed());
+        assertEquals(7, snapshot.getSolution().getRestart());
+        assertEquals(2, snapshot.getSolution().getRoutes().get(0).getLoad(0));
+    }
+
+    @Test
+    void readsProblemsWithoutSolution() throws IOException {
+        Path path = directory.resolve("problem.snap");
+        new Snapshot(loads(), null).write(path);
+        assertNull(Snapshot.read(path).getSolution());
+    }
+
+    @Test
+    void rejectsLoadsInMoreThanOneRoute() throws IOException {
+        LoadSet loads = loads();
+        assertMalformed(loads, new Solution(List.of(route(loads, 0, 1), route(loads, 1, 2))), "more than one route");
+    }
+
+    @Test
+    void rejectsSolutionsMissingLoads() throws IOException {
+        LoadSet loads = loads();
+        assertMalformed(loads, new Solution(List.of(route(loads, 0, 1))), "missing");
+    }
+
+    @Test
+    void rejectsNegativeCounts() throws IOException {
+        // Number of loads with bit 63 set, which would be negative as a long
+        byte[] count = new byte[10];
+        Arrays.fill(count, (byte) 0xFF);
+        count[9] = 0x01;
+        Path path = withChecksum(ByteBuffer.allocate(5 + count.length + 4).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(0x53505256).put((byte) 1).put(count));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> Snapshot.read(path));
+        assertTrue(e.getMessage().contains("count out of range"), e.getMessage());
+    }
+
+    @Test
+    void rejectsVarintsLongerThan64Bits() throws IOException {
+        byte[] count = new byte[11];
+        Arrays.fill(count, (byte) 0x80);
+        Path path = withChecksum(ByteBuffer.allocate(5 + count.length + 4).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(0x53505256).put((byte) 1).put(count));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> Snapshot.read(path));
+        assertTrue(e.getMessage().startsWith("Malformed snapshot [" + path + "]"), e.getMessage());
+    }
+
+    @Test
+    void rejectsTruncatedAndCorruptedFiles() throws IOException {
+        Path path = directory.resolve("solution.snap");
+        LoadSet loads = loads();
+        new Snapshot(loads, new Solution(List.of(route(loads, 0, 1, 2)))).write(path);
+        byte[] bytes = Files.readAllBytes(path);
+
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 3));
+        assertThrows(IllegalArgumentException.class, () -> Snapshot.read(path));
+        bytes[10] ^= 1;
+        Files.write(path, bytes);
+        assertThrows(IllegalArgumentException.class, () -> Snapshot.read(path));
+    }
+
+    private void assertMalformed(LoadSet loads, Solution solution, String reason) throws IOException {
+        Path path = directory.resolve("malformed.snap");
+        new Snapshot(loads, solution).write(path);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> Snapshot.read(path));
+        assertTrue(e.getMessage().contains(reason), e.getMessage());
+    }
+
+    private Path withChecksum(ByteBuffer buffer) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        Path path = directory.resolve("crafted.snap");
+        Files.write(path, buffer.array());
+        return path;
+    }
+
+    private static LoadSet loads() {
+        LoadSet loads = new LoadSet();
+        loads.add(3, -9.1, -48.9, -116.8, 76.8);
+        loads.add(1, 0.1 + 0.2, 10, 20, -0.0);
+        loads.add(20, 50, 50, 60, 40);
+        return loads;
+    }
+
+    private static Route route(LoadSet loads, int... route) {
+        return new Route(loads, route, route.length);
+    }
+}